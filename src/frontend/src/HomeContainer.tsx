@@ -32,7 +32,7 @@ const HomeContainer: React.FC<Props> = ({isAuthenticated, token}) => {
         setRecentReviews(result)
       })
 
-    fetch(`/api/books/reviews?orderBy=rating`, {
+    fetch(`/api/books/reviews?orderBy=rating&size=5`, {
       method: 'GET',
       headers: {
         'Content-Type': 'application/json',
@@ -0,0 +1,24 @@
+package de.rieckpil.courses.book;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of an aggregate, bumped on every committed write and exposed as a weak ETag.
+ * <p>
+ * The ETag embeds an identifier of this application instance, so instances (or restarts) with diverging
+ * counters never produce a matching tag for different content and at worst answer a revalidation with 200.
+ */
+public class ContentVersion {
+
+  private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+  private final AtomicLong version = new AtomicLong();
+
+  public void increment() {
+    version.incrementAndGet();
+  }
+
+  public String getETag() {
+    return "W/\"" + instanceId + "-" + version.get() + "\"";
+  }
+}
@@ -1,7 +1,9 @@
 package de.rieckpil.courses.book.management;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.Objects;
@@ -12,7 +14,12 @@ public class Book {
 
   @Id
   @JsonIgnore
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+  @GenericGenerator(name = "books_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+    @Parameter(name = "sequence_name", value = "books_seq"),
+    @Parameter(name = "increment_size", value = "50"),
+    @Parameter(name = "optimizer", value = "pooled-lo")
+  })
   private Long id;
 
   @Column(nullable = false)
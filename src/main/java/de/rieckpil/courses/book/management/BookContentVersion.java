@@ -0,0 +1,14 @@
+package de.rieckpil.courses.book.management;
+
+import de.rieckpil.courses.book.ContentVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookContentVersion extends ContentVersion {
+
+  @EventListener
+  public void onBookCreated(BookCreatedEvent event) {
+    increment();
+  }
+}
@@ -1,8 +1,11 @@
 package de.rieckpil.courses.book.management;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,7 +20,13 @@ public class BookController {
   }
 
   @GetMapping
-  public List<Book> getAvailableBooks() {
-    return bookManagementService.getAllBooks();
+  public ResponseEntity<List<Book>> getAvailableBooks(WebRequest request) {
+    if (request.checkNotModified(bookManagementService.getBooksETag())) {
+      return null;
+    }
+
+    return ResponseEntity.ok()
+      .cacheControl(CacheControl.noCache())
+      .body(bookManagementService.getAllBooks());
   }
 }
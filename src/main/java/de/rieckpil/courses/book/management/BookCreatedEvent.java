@@ -0,0 +1,14 @@
+package de.rieckpil.courses.book.management;
+
+public class BookCreatedEvent {
+
+  private final Book book;
+
+  public BookCreatedEvent(Book book) {
+    this.book = book;
+  }
+
+  public Book getBook() {
+    return book;
+  }
+}
@@ -8,9 +8,15 @@ import java.util.List;
 public class BookManagementService {
 
   private final BookRepository bookRepository;
+  private final BookContentVersion bookContentVersion;
 
-  public BookManagementService(BookRepository bookRepository) {
+  public BookManagementService(BookRepository bookRepository, BookContentVersion bookContentVersion) {
     this.bookRepository = bookRepository;
+    this.bookContentVersion = bookContentVersion;
+  }
+
+  public String getBooksETag() {
+    return bookContentVersion.getETag();
   }
 
   public List<Book> getAllBooks() {
@@ -1,7 +1,18 @@
 package de.rieckpil.courses.book.management;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     Book findByIsbn(String isbn);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    @Query("SELECT new de.rieckpil.courses.book.management.BookSummary(b.id, b.isbn, b.title, b.thumbnailUrl) " +
+      "FROM Book b WHERE b.isbn = :isbn")
+    BookSummary findSummaryByIsbn(@Param("isbn") String isbn);
 }
@@ -0,0 +1,39 @@
+package de.rieckpil.courses.book.management;
+
+/**
+ * The few book columns the review write path needs, without loading the full {@link Book} row.
+ */
+public class BookSummary {
+
+  private final Long id;
+  private final String isbn;
+  private final String title;
+  private final String thumbnailUrl;
+
+  public BookSummary(Long id, String isbn, String title, String thumbnailUrl) {
+    this.id = id;
+    this.isbn = isbn;
+    this.title = title;
+    this.thumbnailUrl = thumbnailUrl;
+  }
+
+  public static BookSummary from(Book book) {
+    return new BookSummary(book.getId(), book.getIsbn(), book.getTitle(), book.getThumbnailUrl());
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getThumbnailUrl() {
+    return thumbnailUrl;
+  }
+}
@@ -0,0 +1,64 @@
+package de.rieckpil.courses.book.management;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded least-recently-used cache from ISBN to {@link BookSummary}. Unknown ISBNs are remembered for a short
+ * time so that repeated requests for them do not hit the database either. Books never change their id or ISBN,
+ * so positive entries only leave the cache when it is full.
+ */
+@Component
+public class BookSummaryCache {
+
+  private final BookRepository bookRepository;
+  private final long negativeTtlNanos;
+  private final Map<String, Entry> entries;
+
+  public BookSummaryCache(BookRepository bookRepository,
+                          @Value("${books.summary-cache.max-size:10000}") int maxSize,
+                          @Value("${books.summary-cache.negative-ttl:30s}") Duration negativeTtl) {
+    this.bookRepository = bookRepository;
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxSize;
+      }
+    });
+  }
+
+  public Optional<BookSummary> find(String isbn) {
+    Entry entry = entries.get(isbn);
+
+    if (entry != null && (entry.summary != null || System.nanoTime() - entry.createdAt < negativeTtlNanos)) {
+      return Optional.ofNullable(entry.summary);
+    }
+
+    BookSummary summary = bookRepository.findSummaryByIsbn(isbn);
+    entries.put(isbn, new Entry(summary, System.nanoTime()));
+
+    return Optional.ofNullable(summary);
+  }
+
+  public void put(Book book) {
+    entries.put(book.getIsbn(), new Entry(BookSummary.from(book), System.nanoTime()));
+  }
+
+  private static class Entry {
+
+    private final BookSummary summary;
+    private final long createdAt;
+
+    Entry(BookSummary summary, long createdAt) {
+      this.summary = summary;
+      this.createdAt = createdAt;
+    }
+  }
+}
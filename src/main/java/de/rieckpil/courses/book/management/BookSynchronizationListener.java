@@ -3,6 +3,7 @@ package de.rieckpil.courses.book.management;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -12,11 +13,17 @@ public class BookSynchronizationListener {
 
   private final BookRepository bookRepository;
   private final OpenLibraryApiClient openLibraryApiClient;
+  private final ApplicationEventPublisher eventPublisher;
+  private final BookSummaryCache bookSummaryCache;
 
   public BookSynchronizationListener(BookRepository bookRepository,
-                                     OpenLibraryApiClient openLibraryApiClient) {
+                                     OpenLibraryApiClient openLibraryApiClient,
+                                     ApplicationEventPublisher eventPublisher,
+                                     BookSummaryCache bookSummaryCache) {
     this.bookRepository = bookRepository;
     this.openLibraryApiClient = openLibraryApiClient;
+    this.eventPublisher = eventPublisher;
+    this.bookSummaryCache = bookSummaryCache;
   }
 
   @SqsListener(value = "${sqs.book-synchronization-queue}")
@@ -38,6 +45,8 @@ public class BookSynchronizationListener {
     Book book = openLibraryApiClient.fetchMetadataForBook(isbn);
     book = bookRepository.save(book);
     System.out.println(book);
+    bookSummaryCache.put(book);
+    eventPublisher.publishEvent(new BookCreatedEvent(book));
 
     LOG.info("Successfully stored new book '{}'", book);
   }
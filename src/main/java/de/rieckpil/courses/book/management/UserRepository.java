@@ -1,7 +1,20 @@
 package de.rieckpil.courses.book.management;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByNameAndEmail(String name, String email);
+
+    /**
+     * Inserts the user or, if the email is already taken, updates its name, and returns the id either way.
+     * Concurrent calls for the same email serialize on the unique index instead of failing.
+     */
+    @Query(value = "INSERT INTO users (name, email, created_at) VALUES (:name, :email, :createdAt) " +
+      "ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name " +
+      "RETURNING id", nativeQuery = true)
+    Long upsert(@Param("name") String name, @Param("email") String email, @Param("createdAt") LocalDateTime createdAt);
 }
@@ -1,29 +1,69 @@
 package de.rieckpil.courses.book.management;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
+@Transactional
 public class UserService {
 
   private final UserRepository userRepository;
+  private final Map<List<String>, Long> userIds;
 
-  public UserService(UserRepository userRepository) {
+  public UserService(UserRepository userRepository,
+                     @Value("${users.id-cache.max-size:10000}") int maxSize) {
     this.userRepository = userRepository;
+    this.userIds = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<String>, Long> eldest) {
+        return size() > maxSize;
+      }
+    });
   }
 
+  /**
+   * Resolves the user of a token with at most one upsert. The result is a detached user that only carries id,
+   * name and email, which is all a new review needs to reference it.
+   * <p>
+   * A new id is only cached once the surrounding transaction commits. A rolled back insert would otherwise
+   * leave an id in the cache that no row exists for, as sequence values aren't handed out again.
+   */
   public User getOrCreateUser(String name, String email) {
-    User user = userRepository.findByNameAndEmail(name, email);
-
-    if (user == null) {
-      user = new User();
-      user.setName(name);
-      user.setEmail(email);
-      user.setCreatedAt(LocalDateTime.now()); // UUID.randomUUID();
-      user = userRepository.save(user);
+    List<String> identity = List.of(name, email);
+    Long id = userIds.get(identity);
+
+    if (id == null) {
+      id = userRepository.upsert(name, email, LocalDateTime.now());
+      cacheAfterCommit(identity, id);
     }
 
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    user.setEmail(email);
     return user;
   }
+
+  private void cacheAfterCommit(List<String> identity, Long id) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      userIds.put(identity, id);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        userIds.put(identity, id);
+      }
+    });
+  }
 }
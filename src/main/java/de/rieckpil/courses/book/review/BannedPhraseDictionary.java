@@ -0,0 +1,142 @@
+package de.rieckpil.courses.book.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the {@link BannedPhrases} built from a dictionary with one phrase per line (blank lines and lines starting
+ * with {@code #} are skipped) and rebuilds them when the file changes. A rebuilt automaton replaces the previous
+ * one with a single volatile write, so running verifications finish on the automaton they started with and never
+ * wait for a reload. A dictionary that fails to load keeps the previous phrases in place, and so does one without
+ * any phrase, which usually means the file was read mid-write or truncated by accident. To switch moderation off
+ * deliberately, the file has to contain the {@value #EMPTY_MARKER} line. Reloads run on their own thread, so they
+ * neither wait for nor delay the jobs on the shared task scheduler.
+ */
+@Component
+public class BannedPhraseDictionary {
+
+  static final String DEFAULT_LOCATION = "banned-phrases.txt";
+
+  static final String EMPTY_MARKER = "# intentionally empty";
+
+  private static final Logger LOG = LoggerFactory.getLogger(BannedPhraseDictionary.class);
+
+  private final Resource location;
+  private final Duration reloadInterval;
+  private volatile BannedPhrases phrases;
+  private long lastModified;
+  private ScheduledExecutorService reloader;
+
+  public BannedPhraseDictionary(
+    @Value("${reviews.banned-phrases.location:classpath:" + DEFAULT_LOCATION + "}") Resource location,
+    @Value("${reviews.banned-phrases.reload-interval:10s}") Duration reloadInterval) {
+    this.location = location;
+    this.reloadInterval = reloadInterval;
+    this.lastModified = lastModifiedOf(location);
+    this.phrases = load(location);
+
+    if (phrases.size() == 0 && !isIntentionallyEmpty(location)) {
+      LOG.warn("No banned phrases found in {}, reviews are not checked for banned phrases", location);
+    }
+  }
+
+  public BannedPhrases current() {
+    return phrases;
+  }
+
+  @PostConstruct
+  public void start() {
+    reloader = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("banned-phrases-"));
+    reloader.scheduleWithFixedDelay(() -> {
+      try {
+        reloadIfModified();
+      } catch (RuntimeException e) {
+        // an escaping exception would cancel all further runs
+        LOG.error("Failed to reload banned phrases from {}", location, e);
+      }
+    }, reloadInterval.toNanos(), reloadInterval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (reloader != null) {
+      reloader.shutdownNow();
+    }
+  }
+
+  public synchronized boolean reloadIfModified() {
+    long modified = lastModifiedOf(location);
+
+    if (modified == lastModified) {
+      return false;
+    }
+
+    try {
+      BannedPhrases reloaded = load(location);
+
+      if (reloaded.size() == 0 && !isIntentionallyEmpty(location)) {
+        LOG.warn("No banned phrases found in {} without the '{}' line, keeping the previous {}",
+          location, EMPTY_MARKER, phrases.size());
+        return false;
+      }
+
+      phrases = reloaded;
+      lastModified = modified;
+      LOG.info("Loaded {} banned phrase(s) from {}", reloaded.size(), location);
+      return true;
+    } catch (UncheckedIOException e) {
+      LOG.warn("Failed to reload banned phrases from {}, keeping the previous {}", location, phrases.size(), e);
+      return false;
+    }
+  }
+
+  private static BannedPhrases load(Resource location) {
+    List<String> lines = readLines(location).stream()
+      .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+      .collect(Collectors.toList());
+
+    return BannedPhrases.of(lines);
+  }
+
+  private static boolean isIntentionallyEmpty(Resource location) {
+    return readLines(location).contains(EMPTY_MARKER);
+  }
+
+  private static List<String> readLines(Resource location) {
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8))) {
+
+      return reader.lines()
+        .map(String::strip)
+        .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read banned phrases from " + location, e);
+    }
+  }
+
+  private static long lastModifiedOf(Resource location) {
+    try {
+      return location.lastModified();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Immutable Aho-Corasick automaton that finds any of a set of phrases in one pass over a text, independent of the
+ * number of phrases. The failure links are resolved at build time into a complete transition table over the
+ * characters that occur in the phrases (all other characters share one class), so scanning is a single array
+ * lookup per character. Matching is case-sensitive.
+ */
+public final class BannedPhrases {
+
+  static final int INITIAL_STATE = 0;
+
+  private final int phraseCount;
+  private final char[] characterClasses;
+  private final int width;
+  private final int[] transitions;
+  private final boolean[] matches;
+
+  private BannedPhrases(int phraseCount, char[] characterClasses, int width, int[] transitions, boolean[] matches) {
+    this.phraseCount = phraseCount;
+    this.characterClasses = characterClasses;
+    this.width = width;
+    this.transitions = transitions;
+    this.matches = matches;
+  }
+
+  /**
+   * Empty phrases are ignored, as they would match every text.
+   */
+  public static BannedPhrases of(Collection<String> phrases) {
+    char[] characterClasses = new char[Character.MAX_VALUE + 1];
+    int width = 1;
+
+    for (String phrase : phrases) {
+      for (int i = 0; i < phrase.length(); i++) {
+        char c = phrase.charAt(i);
+        if (characterClasses[c] == 0) {
+          characterClasses[c] = (char) width++;
+        }
+      }
+    }
+
+    List<int[]> rows = new ArrayList<>();
+    List<Boolean> terminal = new ArrayList<>();
+    rows.add(emptyRow(width));
+    terminal.add(false);
+
+    int phraseCount = 0;
+
+    for (String phrase : phrases) {
+      if (phrase.isEmpty()) {
+        continue;
+      }
+
+      int state = INITIAL_STATE;
+      for (int i = 0; i < phrase.length(); i++) {
+        int characterClass = characterClasses[phrase.charAt(i)];
+        if (rows.get(state)[characterClass] < 0) {
+          rows.get(state)[characterClass] = rows.size();
+          rows.add(emptyRow(width));
+          terminal.add(false);
+        }
+        state = rows.get(state)[characterClass];
+      }
+
+      terminal.set(state, true);
+      phraseCount++;
+    }
+
+    int[] transitions = new int[rows.size() * width];
+    boolean[] matches = new boolean[rows.size()];
+    int[] failure = new int[rows.size()];
+    Queue<Integer> queue = new ArrayDeque<>();
+    queue.add(INITIAL_STATE);
+
+    // breadth first, so the failure target of every state is complete before the state itself is resolved
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      int[] row = rows.get(state);
+      matches[state] = terminal.get(state) || (state != INITIAL_STATE && matches[failure[state]]);
+
+      for (int characterClass = 0; characterClass < width; characterClass++) {
+        int fallback = state == INITIAL_STATE
+          ? INITIAL_STATE
+          : transitions[failure[state] * width + characterClass];
+
+        if (row[characterClass] < 0) {
+          transitions[state * width + characterClass] = fallback;
+        } else {
+          int child = row[characterClass];
+          failure[child] = fallback;
+          transitions[state * width + characterClass] = child;
+          queue.add(child);
+        }
+      }
+    }
+
+    return new BannedPhrases(phraseCount, characterClasses, width, transitions, matches);
+  }
+
+  public boolean containsAny(CharSequence text) {
+    int state = INITIAL_STATE;
+
+    for (int i = 0; i < text.length(); i++) {
+      state = next(state, text.charAt(i));
+      if (isMatch(state)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Advances a scan started at {@link #INITIAL_STATE} by one character, for callers that check more than the
+   * phrases in the same pass.
+   */
+  int next(int state, char c) {
+    return transitions[state * width + characterClasses[c]];
+  }
+
+  /**
+   * @return whether the text scanned up to the given state ends with a phrase
+   */
+  boolean isMatch(int state) {
+    return matches[state];
+  }
+
+  public int size() {
+    return phraseCount;
+  }
+
+  private static int[] emptyRow(int width) {
+    int[] row = new int[width];
+    Arrays.fill(row, -1);
+    return row;
+  }
+}
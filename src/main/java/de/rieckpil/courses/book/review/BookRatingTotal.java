@@ -0,0 +1,20 @@
+package de.rieckpil.courses.book.review;
+
+public class BookRatingTotal {
+
+  private final BookReviewStats stats;
+  private final String isbn;
+
+  public BookRatingTotal(BookReviewStats stats, String isbn) {
+    this.stats = stats;
+    this.isbn = isbn;
+  }
+
+  public BookReviewStats getStats() {
+    return stats;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+}
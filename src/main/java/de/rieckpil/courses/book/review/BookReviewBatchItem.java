@@ -0,0 +1,60 @@
+package de.rieckpil.courses.book.review;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+
+public class BookReviewBatchItem {
+
+  @NotEmpty
+  private String isbn;
+
+  @NotEmpty
+  private String reviewTitle;
+
+  @NotEmpty
+  private String reviewContent;
+
+  @NotNull
+  @PositiveOrZero
+  private Integer rating;
+
+  public BookReviewBatchItem(String isbn, String reviewTitle, String reviewContent, Integer rating) {
+    this.isbn = isbn;
+    this.reviewTitle = reviewTitle;
+    this.reviewContent = reviewContent;
+    this.rating = rating;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public void setIsbn(String isbn) {
+    this.isbn = isbn;
+  }
+
+  public String getReviewTitle() {
+    return reviewTitle;
+  }
+
+  public void setReviewTitle(String reviewTitle) {
+    this.reviewTitle = reviewTitle;
+  }
+
+  public String getReviewContent() {
+    return reviewContent;
+  }
+
+  public void setReviewContent(String reviewContent) {
+    this.reviewContent = reviewContent;
+  }
+
+  public Integer getRating() {
+    return rating;
+  }
+
+  public void setRating(Integer rating) {
+    this.rating = rating;
+  }
+}
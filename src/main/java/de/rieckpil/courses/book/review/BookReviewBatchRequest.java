@@ -0,0 +1,24 @@
+package de.rieckpil.courses.book.review;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BookReviewBatchRequest {
+
+  static final int MAX_REVIEWS = 500;
+
+  @Valid
+  @NotEmpty
+  @Size(max = MAX_REVIEWS)
+  private List<BookReviewBatchItem> reviews;
+
+  public List<BookReviewBatchItem> getReviews() {
+    return reviews;
+  }
+
+  public void setReviews(List<BookReviewBatchItem> reviews) {
+    this.reviews = reviews;
+  }
+}
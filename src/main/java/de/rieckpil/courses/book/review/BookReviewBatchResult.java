@@ -0,0 +1,33 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookReviewBatchResult {
+
+  public enum Status {
+    CREATED, BOOK_NOT_FOUND, BAD_REVIEW_QUALITY
+  }
+
+  private final int index;
+  private final Status status;
+  private final Long reviewId;
+
+  public BookReviewBatchResult(int index, Status status, Long reviewId) {
+    this.index = index;
+    this.status = status;
+    this.reviewId = reviewId;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Long getReviewId() {
+    return reviewId;
+  }
+}
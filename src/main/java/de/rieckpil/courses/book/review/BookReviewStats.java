@@ -0,0 +1,82 @@
+package de.rieckpil.courses.book.review;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Running rating count and sum of one book, maintained in the same transaction as the reviews themselves.
+ */
+@Entity
+@Table(name = "book_review_stats")
+public class BookReviewStats {
+
+  @Id
+  private Long bookId;
+
+  @Column(nullable = false)
+  private Long ratings;
+
+  @Column(nullable = false)
+  private Long ratingSum;
+
+  @Column(name = "rating_0_count", nullable = false)
+  private long rating0Count;
+
+  @Column(name = "rating_1_count", nullable = false)
+  private long rating1Count;
+
+  @Column(name = "rating_2_count", nullable = false)
+  private long rating2Count;
+
+  @Column(name = "rating_3_count", nullable = false)
+  private long rating3Count;
+
+  @Column(name = "rating_4_count", nullable = false)
+  private long rating4Count;
+
+  @Column(name = "rating_5_count", nullable = false)
+  private long rating5Count;
+
+  public Long getBookId() {
+    return bookId;
+  }
+
+  public void setBookId(Long bookId) {
+    this.bookId = bookId;
+  }
+
+  public Long getRatings() {
+    return ratings;
+  }
+
+  public void setRatings(Long ratings) {
+    this.ratings = ratings;
+  }
+
+  public Long getRatingSum() {
+    return ratingSum;
+  }
+
+  public void setRatingSum(Long ratingSum) {
+    this.ratingSum = ratingSum;
+  }
+
+  /**
+   * @return the number of ratings per value, index {@code i} counting the ratings of {@code i} (5 and above for
+   * the last index)
+   */
+  public long[] getHistogram() {
+    return new long[]{rating0Count, rating1Count, rating2Count, rating3Count, rating4Count, rating5Count};
+  }
+
+  public void setHistogram(long[] histogram) {
+    this.rating0Count = histogram[0];
+    this.rating1Count = histogram[1];
+    this.rating2Count = histogram[2];
+    this.rating3Count = histogram[3];
+    this.rating4Count = histogram[4];
+    this.rating5Count = histogram[5];
+  }
+}
@@ -0,0 +1,66 @@
+package de.rieckpil.courses.book.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Periodically recomputes the statistics from the reviews table and repairs rows that drifted, e.g. because
+ * reviews were changed without going through {@link ReviewService}.
+ * <p>
+ * The drift is detected without any lock. Each drifted book is then repaired in a short transaction of its own
+ * that only locks its statistics row, so review writes of other books never wait for the reconciliation.
+ */
+@Component
+public class BookReviewStatsReconciliation {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BookReviewStatsReconciliation.class);
+
+  private final BookReviewStatsRepository bookReviewStatsRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public BookReviewStatsReconciliation(BookReviewStatsRepository bookReviewStatsRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       ApplicationEventPublisher eventPublisher) {
+    this.bookReviewStatsRepository = bookReviewStatsRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Scheduled(cron = "${reviews.stats.reconciliation-cron:0 0 3 * * *}")
+  public int reconcile() {
+    List<DriftedBookStats> drifted = bookReviewStatsRepository.findDrifted();
+    int repaired = 0;
+
+    for (DriftedBookStats book : drifted) {
+      if (Boolean.TRUE.equals(transactionTemplate.execute(status -> repair(book.getBookId())))) {
+        repaired++;
+      }
+    }
+
+    if (repaired > 0) {
+      LOG.warn("Review statistics drifted: repaired {} book(s)", repaired);
+      eventPublisher.publishEvent(new ReviewStatisticsRepairedEvent(repaired));
+    } else {
+      LOG.info("Review statistics are consistent with the reviews table");
+    }
+
+    return repaired;
+  }
+
+  private boolean repair(Long bookId) {
+    bookReviewStatsRepository.insertIfMissing(bookId);
+    bookReviewStatsRepository.lockByBookId(bookId);
+
+    boolean repaired = bookReviewStatsRepository.repair(bookId) > 0;
+    bookReviewStatsRepository.deleteAllIfEmpty(List.of(bookId));
+
+    return repaired;
+  }
+}
@@ -0,0 +1,149 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookReviewStatsRepository extends JpaRepository<BookReviewStats, Long> {
+
+  @Query("SELECT new de.rieckpil.courses.book.review.BookRatingTotal(s, b.isbn) " +
+    "FROM BookReviewStats s, Book b " +
+    "WHERE b.id = s.bookId")
+  List<BookRatingTotal> findAllRatingTotals();
+
+  /**
+   * Adds one rating to the count, the sum and its histogram bucket; ratings above 5 count into the top bucket.
+   */
+  @Modifying
+  @Query(value =
+    "INSERT INTO book_review_stats (book_id, ratings, rating_sum, " +
+      "  rating_0_count, rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count) " +
+      "VALUES (:bookId, 1, :rating, " +
+      "  CASE LEAST(:rating, 5) WHEN 0 THEN 1 ELSE 0 END, CASE LEAST(:rating, 5) WHEN 1 THEN 1 ELSE 0 END, " +
+      "  CASE LEAST(:rating, 5) WHEN 2 THEN 1 ELSE 0 END, CASE LEAST(:rating, 5) WHEN 3 THEN 1 ELSE 0 END, " +
+      "  CASE LEAST(:rating, 5) WHEN 4 THEN 1 ELSE 0 END, CASE LEAST(:rating, 5) WHEN 5 THEN 1 ELSE 0 END) " +
+      "ON CONFLICT (book_id) DO UPDATE " +
+      "SET ratings = book_review_stats.ratings + 1, rating_sum = book_review_stats.rating_sum + EXCLUDED.rating_sum, " +
+      "  rating_0_count = book_review_stats.rating_0_count + EXCLUDED.rating_0_count, " +
+      "  rating_1_count = book_review_stats.rating_1_count + EXCLUDED.rating_1_count, " +
+      "  rating_2_count = book_review_stats.rating_2_count + EXCLUDED.rating_2_count, " +
+      "  rating_3_count = book_review_stats.rating_3_count + EXCLUDED.rating_3_count, " +
+      "  rating_4_count = book_review_stats.rating_4_count + EXCLUDED.rating_4_count, " +
+      "  rating_5_count = book_review_stats.rating_5_count + EXCLUDED.rating_5_count",
+    nativeQuery = true)
+  void addRating(@Param("bookId") Long bookId, @Param("rating") Integer rating);
+
+  /**
+   * Adds the totals of several ratings of one book at once, so a batch needs one upsert per book.
+   */
+  @Modifying
+  @Query(value =
+    "INSERT INTO book_review_stats (book_id, ratings, rating_sum, " +
+      "  rating_0_count, rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count) " +
+      "VALUES (:bookId, :ratings, :ratingSum, :rating0Count, :rating1Count, :rating2Count, :rating3Count, " +
+      "  :rating4Count, :rating5Count) " +
+      "ON CONFLICT (book_id) DO UPDATE " +
+      "SET ratings = book_review_stats.ratings + EXCLUDED.ratings, " +
+      "  rating_sum = book_review_stats.rating_sum + EXCLUDED.rating_sum, " +
+      "  rating_0_count = book_review_stats.rating_0_count + EXCLUDED.rating_0_count, " +
+      "  rating_1_count = book_review_stats.rating_1_count + EXCLUDED.rating_1_count, " +
+      "  rating_2_count = book_review_stats.rating_2_count + EXCLUDED.rating_2_count, " +
+      "  rating_3_count = book_review_stats.rating_3_count + EXCLUDED.rating_3_count, " +
+      "  rating_4_count = book_review_stats.rating_4_count + EXCLUDED.rating_4_count, " +
+      "  rating_5_count = book_review_stats.rating_5_count + EXCLUDED.rating_5_count",
+    nativeQuery = true)
+  void addRatings(@Param("bookId") Long bookId, @Param("ratings") long ratings, @Param("ratingSum") long ratingSum,
+                  @Param("rating0Count") long rating0Count, @Param("rating1Count") long rating1Count,
+                  @Param("rating2Count") long rating2Count, @Param("rating3Count") long rating3Count,
+                  @Param("rating4Count") long rating4Count, @Param("rating5Count") long rating5Count);
+
+  /**
+   * @return the number of statistics rows dropped because their books have no reviews left
+   */
+  @Modifying
+  @Query(value = "DELETE FROM book_review_stats WHERE book_id IN (:bookIds) AND ratings <= 0", nativeQuery = true)
+  int deleteAllIfEmpty(@Param("bookIds") Collection<Long> bookIds);
+
+  /**
+   * Compares the stored statistics with the reviews table within one snapshot and without locking, as a review
+   * and its statistics change in the same transaction.
+   */
+  @Query(value =
+    "SELECT COALESCE(r.book_id, s.book_id) AS \"bookId\" " +
+      "FROM (" +
+      "  SELECT book_id, COUNT(*) AS ratings, SUM(rating) AS rating_sum, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 0) AS rating_0_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 1) AS rating_1_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 2) AS rating_2_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 3) AS rating_3_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 4) AS rating_4_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 5) AS rating_5_count " +
+      "  FROM reviews WHERE book_id IS NOT NULL GROUP BY book_id" +
+      ") r " +
+      "FULL OUTER JOIN book_review_stats s ON s.book_id = r.book_id " +
+      "WHERE (s.ratings, s.rating_sum, s.rating_0_count, s.rating_1_count, s.rating_2_count, " +
+      "  s.rating_3_count, s.rating_4_count, s.rating_5_count) " +
+      "IS DISTINCT FROM (r.ratings, r.rating_sum, r.rating_0_count, r.rating_1_count, r.rating_2_count, " +
+      "  r.rating_3_count, r.rating_4_count, r.rating_5_count) " +
+      "ORDER BY 1",
+    nativeQuery = true)
+  List<DriftedBookStats> findDrifted();
+
+  /**
+   * Creates an empty statistics row for a book whose row went missing, so {@link #lockByBookId} has a row to lock.
+   */
+  @Modifying
+  @Query(value =
+    "INSERT INTO book_review_stats (book_id, ratings, rating_sum) VALUES (:bookId, 0, 0) " +
+      "ON CONFLICT (book_id) DO NOTHING",
+    nativeQuery = true)
+  void insertIfMissing(@Param("bookId") Long bookId);
+
+  /**
+   * Waits for rating updates of the book in flight and blocks new ones until the surrounding transaction ends.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT s FROM BookReviewStats s WHERE s.bookId = :bookId")
+  Optional<BookReviewStats> lockByBookId(@Param("bookId") Long bookId);
+
+  /**
+   * Recomputes the statistics of one book from its reviews. Run it in its own statement after
+   * {@link #lockByBookId}, so it reads every rating update committed before the lock was granted.
+   *
+   * @return 1 if the stored statistics differed from the reviews table, 0 otherwise
+   */
+  @Modifying(clearAutomatically = true)
+  @Query(value =
+    "UPDATE book_review_stats s " +
+      "SET ratings = r.ratings, rating_sum = r.rating_sum, " +
+      "  rating_0_count = r.rating_0_count, " +
+      "  rating_1_count = r.rating_1_count, " +
+      "  rating_2_count = r.rating_2_count, " +
+      "  rating_3_count = r.rating_3_count, " +
+      "  rating_4_count = r.rating_4_count, " +
+      "  rating_5_count = r.rating_5_count " +
+      "FROM (" +
+      "  SELECT COUNT(*) AS ratings, COALESCE(SUM(rating), 0) AS rating_sum, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 0) AS rating_0_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 1) AS rating_1_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 2) AS rating_2_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 3) AS rating_3_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 4) AS rating_4_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 5) AS rating_5_count " +
+      "  FROM reviews WHERE book_id = :bookId" +
+      ") r " +
+      "WHERE s.book_id = :bookId " +
+      "AND (s.ratings, s.rating_sum, s.rating_0_count, s.rating_1_count, s.rating_2_count, " +
+      "  s.rating_3_count, s.rating_4_count, s.rating_5_count) " +
+      "IS DISTINCT FROM (r.ratings, r.rating_sum, r.rating_0_count, r.rating_1_count, r.rating_2_count, " +
+      "  r.rating_3_count, r.rating_4_count, r.rating_5_count)",
+    nativeQuery = true)
+  int repair(@Param("bookId") Long bookId);
+}
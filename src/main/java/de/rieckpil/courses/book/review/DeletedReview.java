@@ -0,0 +1,13 @@
+package de.rieckpil.courses.book.review;
+
+/**
+ * A row returned by the bulk deletes in {@link ReviewRepository}.
+ */
+public interface DeletedReview {
+
+  Long getReviewId();
+
+  Long getBookId();
+
+  Integer getRating();
+}
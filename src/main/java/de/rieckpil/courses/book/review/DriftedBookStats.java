@@ -0,0 +1,9 @@
+package de.rieckpil.courses.book.review;
+
+/**
+ * A book whose statistics differ from its reviews, as found by {@link BookReviewStatsRepository#findDrifted()}.
+ */
+public interface DriftedBookStats {
+
+  Long getBookId();
+}
@@ -0,0 +1,11 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidIdempotencyKeyException extends RuntimeException {
+  public InvalidIdempotencyKeyException() {
+    super("Idempotency key must be between 1 and " + ReviewIdempotency.MAX_KEY_LENGTH + " characters");
+  }
+}
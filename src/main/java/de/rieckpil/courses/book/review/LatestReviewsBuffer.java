@@ -0,0 +1,22 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * The most recent reviews, ordered like {@link ReviewRepository#findLatestViews}.
+ */
+@Component
+public class LatestReviewsBuffer extends ReviewWindow {
+
+  static final Comparator<ReviewView> NEWEST_FIRST = Comparator
+    .comparing(ReviewView::getCreatedAt)
+    .thenComparing(ReviewView::getReviewId)
+    .reversed();
+
+  public LatestReviewsBuffer(@Value("${reviews.latest-buffer.capacity:50}") int capacity) {
+    super(NEWEST_FIRST, capacity);
+  }
+}
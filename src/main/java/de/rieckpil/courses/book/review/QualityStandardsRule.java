@@ -0,0 +1,85 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * The built-in checks, fused into one allocation-free pass over the review. Rejects reviews that
+ * <ul>
+ *   <li>contain any phrase of the current {@link BannedPhraseDictionary},</li>
+ *   <li>use the word "I" five times or "good" three times, compared ignoring case,</li>
+ *   <li>or have ten words or fewer.</li>
+ * </ul>
+ * Words are counted like {@code review.split(" ")} does, so empty tokens between consecutive spaces count and
+ * trailing ones don't. Returns as soon as one check fails. Other rules run before or after it by their order.
+ */
+@Component
+public class QualityStandardsRule implements ReviewRule {
+
+  private static final int MINIMUM_WORDS = 11;
+
+  private final BannedPhraseDictionary bannedPhraseDictionary;
+
+  public QualityStandardsRule(BannedPhraseDictionary bannedPhraseDictionary) {
+    this.bannedPhraseDictionary = bannedPhraseDictionary;
+  }
+
+  @Override
+  public String getName() {
+    return "quality-standards";
+  }
+
+  @Override
+  public int getOrder() {
+    return 0;
+  }
+
+  @Override
+  public boolean accepts(String review) {
+    BannedPhrases bannedPhrases = bannedPhraseDictionary.current();
+    int length = review.length();
+    int state = BannedPhrases.INITIAL_STATE;
+    int tokens = 0;
+    int countedTokens = 0;
+    int iCount = 0;
+    int goodCount = 0;
+    int tokenStart = 0;
+
+    for (int i = 0; i <= length; i++) {
+      if (i < length) {
+        char c = review.charAt(i);
+        state = bannedPhrases.next(state, c);
+
+        if (bannedPhrases.isMatch(state)) {
+          return false;
+        }
+
+        if (c != ' ') {
+          continue;
+        }
+      }
+
+      int tokenLength = i - tokenStart;
+      tokens++;
+
+      if (tokenLength > 0) {
+        countedTokens = tokens;
+
+        if (isWord(review, tokenStart, tokenLength, "I") && ++iCount >= 5) {
+          return false;
+        }
+
+        if (isWord(review, tokenStart, tokenLength, "good") && ++goodCount >= 3) {
+          return false;
+        }
+      }
+
+      tokenStart = i + 1;
+    }
+
+    return countedTokens >= MINIMUM_WORDS;
+  }
+
+  private static boolean isWord(String review, int start, int length, String word) {
+    return length == word.length() && review.regionMatches(true, start, word, 0, length);
+  }
+}
@@ -0,0 +1,79 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"bookId", "isbn", "ratings", "histogram", "median", "p90"})
+public class RatingDistributionView {
+
+  /**
+   * Ratings 0 to 5 get a bucket each; the unbounded ratings above 5 share the last one.
+   */
+  public static final int HISTOGRAM_BUCKETS = 6;
+
+  private final Long bookId;
+  private final String isbn;
+  private final long ratings;
+  private final long[] histogram;
+  private final int median;
+  private final int p90;
+
+  public RatingDistributionView(Long bookId, String isbn, long[] histogram) {
+    this.bookId = bookId;
+    this.isbn = isbn;
+    this.histogram = histogram.clone();
+
+    long total = 0;
+    for (long count : histogram) {
+      total += count;
+    }
+
+    this.ratings = total;
+    this.median = percentile(0.5);
+    this.p90 = percentile(0.9);
+  }
+
+  public static int bucketOf(int rating) {
+    return Math.min(Math.max(rating, 0), HISTOGRAM_BUCKETS - 1);
+  }
+
+  /**
+   * Nearest-rank percentile: the smallest rating that at least {@code p} of all ratings are less than or equal to.
+   */
+  private int percentile(double p) {
+    long rank = Math.max(1, (long) Math.ceil(p * ratings));
+    long cumulative = 0;
+
+    for (int bucket = 0; bucket < histogram.length; bucket++) {
+      cumulative += histogram[bucket];
+      if (cumulative >= rank) {
+        return bucket;
+      }
+    }
+
+    return 0;
+  }
+
+  public Long getBookId() {
+    return bookId;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public long getRatings() {
+    return ratings;
+  }
+
+  public long[] getHistogram() {
+    return histogram.clone();
+  }
+
+  public int getMedian() {
+    return median;
+  }
+
+  public int getP90() {
+    return p90;
+  }
+}
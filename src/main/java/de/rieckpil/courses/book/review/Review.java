@@ -2,6 +2,8 @@ package de.rieckpil.courses.book.review;
 
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.User;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -11,7 +13,12 @@ import java.time.LocalDateTime;
 public class Review {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+  @GenericGenerator(name = "reviews_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+    @Parameter(name = "sequence_name", value = "reviews_seq"),
+    @Parameter(name = "increment_size", value = "50"),
+    @Parameter(name = "optimizer", value = "pooled-lo")
+  })
   private Long id;
 
   @Column(nullable = false)
@@ -26,10 +33,10 @@ public class Review {
   @Column(nullable = false)
   private LocalDateTime createdAt;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   private Book book;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   private User user;
 
   public Long getId() {
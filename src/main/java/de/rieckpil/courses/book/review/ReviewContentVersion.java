@@ -0,0 +1,32 @@
+package de.rieckpil.courses.book.review;
+
+import de.rieckpil.courses.book.ContentVersion;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bumped after the in-memory views applied a committed write. A read in between then still pairs the old content
+ * with the old ETag, instead of caching old content under the new one.
+ */
+@Component
+public class ReviewContentVersion extends ContentVersion {
+
+  /**
+   * Order of the listeners that apply review writes to the in-memory views, ahead of the version bump.
+   */
+  static final int VIEW_ORDER = 0;
+
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @TransactionalEventListener
+  public void onReviewCreated(ReviewCreatedEvent event) {
+    increment();
+  }
+
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @TransactionalEventListener
+  public void onReviewDeleted(ReviewDeletedEvent event) {
+    increment();
+  }
+}
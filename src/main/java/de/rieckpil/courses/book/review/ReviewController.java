@@ -1,53 +1,192 @@
 package de.rieckpil.courses.book.review;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Validated
 @RestController
 @RequestMapping("/api/books")
 public class ReviewController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+  static final String PREFER_HEADER = "Prefer";
+  static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+  static final String RESPOND_ASYNC = "respond-async";
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final int MAX_STATISTICS_PAGE_SIZE = 1000;
+  static final int MAX_SEARCH_PAGE_SIZE = 100;
+
   private final ReviewService reviewService;
+  private final ReviewIngestion reviewIngestion;
+  private final ReviewIdempotency reviewIdempotency;
 
-  public ReviewController(ReviewService reviewService) {
+  public ReviewController(ReviewService reviewService, ReviewIngestion reviewIngestion,
+                          ReviewIdempotency reviewIdempotency) {
     this.reviewService = reviewService;
+    this.reviewIngestion = reviewIngestion;
+    this.reviewIdempotency = reviewIdempotency;
   }
 
   @GetMapping("/reviews")
-  public ArrayNode getAllReviews(@RequestParam(name = "size", defaultValue = "20") Integer size,
-                                 @RequestParam(name = "orderBy", defaultValue = "none") String orderBy) {
-    return reviewService.getAllReviews(size, orderBy);
+  public ResponseEntity<List<?>> getAllReviews(@RequestParam(name = "size", defaultValue = "20") Integer size,
+                                               @RequestParam(name = "orderBy", defaultValue = "none") String orderBy,
+                                               @RequestParam(name = "after", required = false) String after,
+                                               @RequestParam(name = "fields", required = false) String fields,
+                                               WebRequest request) {
+    Set<ReviewField> selectedFields = ReviewField.parse(fields);
+
+    // only the first page is served from memory and covered by the write-version counter
+    if (after == null && request.checkNotModified(reviewService.getReviewsETag())) {
+      return null;
+    }
+
+    ReviewPage reviewPage = reviewService.getAllReviews(size, orderBy, after, selectedFields);
+
+    if (after != null && request.checkNotModified(reviewPage.getETag())) {
+      return null;
+    }
+
+    return toResponse(reviewPage, selectedFields);
+  }
+
+  @GetMapping("/reviews/search")
+  public ResponseEntity<List<ReviewView>> searchReviews(@RequestParam(name = "q") String query,
+                                                        @RequestParam(name = "page", defaultValue = "0") @Min(0) Integer page,
+                                                        @RequestParam(name = "size", defaultValue = "20") @Min(1) @Max(MAX_SEARCH_PAGE_SIZE) Integer size,
+                                                        WebRequest request) {
+    List<ReviewView> result = reviewService.searchReviews(query, page, size);
+
+    if (request.checkNotModified(ReviewPage.eTagOf(result, null))) {
+      return null;
+    }
+
+    return ResponseEntity.ok()
+      .cacheControl(CacheControl.noCache())
+      .body(result);
+  }
+
+  @GetMapping("/{isbn}/reviews")
+  public ResponseEntity<List<?>> getReviewsForBook(@PathVariable String isbn,
+                                                   @RequestParam(name = "size", defaultValue = "20") Integer size,
+                                                   @RequestParam(name = "after", required = false) String after,
+                                                   @RequestParam(name = "fields", required = false) String fields,
+                                                   WebRequest request) {
+    Set<ReviewField> selectedFields = ReviewField.parse(fields);
+    ReviewPage reviewPage = reviewService.getReviewsForBook(isbn, size, after, selectedFields);
+
+    if (request.checkNotModified(reviewPage.getETag())) {
+      return null;
+    }
+
+    return toResponse(reviewPage, selectedFields);
+  }
+
+  @GetMapping(value = "/reviews/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<ReviewView>> streamCreatedReviews() {
+    return reviewService.streamCreatedReviews();
   }
 
   @GetMapping("/reviews/statistics")
-  public ArrayNode getReviewStatistics() {
-    return reviewService.getReviewStatistics();
+  public ResponseEntity<List<ReviewStatisticView>> getReviewStatistics(
+    @RequestParam(name = "isbn", required = false) String isbn,
+    @RequestParam(name = "orderBy", defaultValue = "none") String orderBy,
+    @RequestParam(name = "page", required = false) @Min(0) Integer page,
+    @RequestParam(name = "size", required = false) @Min(1) @Max(MAX_STATISTICS_PAGE_SIZE) Integer size,
+    WebRequest request) {
+    if (request.checkNotModified(reviewService.getReviewsETag())) {
+      return null;
+    }
+
+    ReviewStatisticPage statisticPage = reviewService.getReviewStatistics(isbn, orderBy, page, size);
+
+    return ResponseEntity.ok()
+      .cacheControl(CacheControl.noCache().cachePrivate())
+      .header(TOTAL_COUNT_HEADER, String.valueOf(statisticPage.getTotalCount()))
+      .body(statisticPage.getStatistics());
+  }
+
+  @GetMapping("/reviews/statistics/distribution")
+  public ResponseEntity<List<RatingDistributionView>> getRatingDistributions(WebRequest request) {
+    if (request.checkNotModified(reviewService.getReviewsETag())) {
+      return null;
+    }
+
+    return ResponseEntity.ok()
+      .cacheControl(CacheControl.noCache().cachePrivate())
+      .body(reviewService.getRatingDistributions());
   }
 
+  /**
+   * Creates the review right away, unless the client sends {@code Prefer: respond-async}, which enqueues it and
+   * answers with 202. Requests with an {@code Idempotency-Key} are always handled synchronously, as the ingestion
+   * queue can't tell a retry from a new review.
+   */
   @PostMapping("/{isbn}/reviews")
-  public ResponseEntity<Void> createBookReview(@PathVariable("isbn") String isbn,
-                                               @RequestBody @Valid BookReviewRequest bookReviewRequest,
-                                               JwtAuthenticationToken jwt,
-                                               UriComponentsBuilder uriComponentsBuilder) {
+  public ResponseEntity<?> createBookReview(@PathVariable("isbn") String isbn,
+                                            @RequestBody @Valid BookReviewRequest bookReviewRequest,
+                                            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                            @RequestHeader(name = PREFER_HEADER, required = false) List<String> preferences,
+                                            JwtAuthenticationToken jwt,
+                                            UriComponentsBuilder uriComponentsBuilder) {
 
-    Long reviewId = reviewService.createBookReview(isbn, bookReviewRequest,
-      jwt.getTokenAttributes().get("preferred_username").toString(),
-      jwt.getTokenAttributes().get("email").toString());
+    String userName = jwt.getTokenAttributes().get("preferred_username").toString();
+    String email = jwt.getTokenAttributes().get("email").toString();
+
+    if (idempotencyKey == null && prefersAsync(preferences)) {
+      return enqueueBookReview(isbn, bookReviewRequest, userName, email, uriComponentsBuilder);
+    }
+
+    Long reviewId = idempotencyKey == null
+      ? reviewService.createBookReview(isbn, bookReviewRequest, userName, email)
+      : reviewIdempotency.createBookReview(isbn, bookReviewRequest, userName, email, idempotencyKey);
 
     UriComponents uriComponents = uriComponentsBuilder.path("/api/books/{isbn}/reviews/{reviewId}").buildAndExpand(isbn, reviewId);
     return ResponseEntity.created(uriComponents.toUri()).build();
   }
 
+  @GetMapping("/reviews/ingestion/{ticketId}")
+  public ReviewIngestionStatus getIngestionStatus(@PathVariable String ticketId) {
+    return reviewIngestion.getStatus(ticketId);
+  }
+
+  @PostMapping("/reviews/batch")
+  public List<BookReviewBatchResult> createBookReviews(@RequestBody @Valid BookReviewBatchRequest batchRequest,
+                                                       JwtAuthenticationToken jwt) {
+    return reviewService.createBookReviews(batchRequest.getReviews(),
+      jwt.getTokenAttributes().get("preferred_username").toString(),
+      jwt.getTokenAttributes().get("email").toString());
+  }
+
+  @DeleteMapping("/reviews")
+  @PreAuthorize("hasAuthority('ROLE_moderator')")
+  public List<Long> deleteReviews(@RequestParam(name = "ids", required = false) List<Long> reviewIds,
+                                  @RequestParam(name = "userEmail", required = false) String userEmail,
+                                  @RequestParam(name = "isbn", required = false) String isbn) {
+    return reviewService.deleteReviews(reviewIds, userEmail, isbn);
+  }
+
   @DeleteMapping("/{isbn}/reviews/{reviewId}")
   @PreAuthorize("hasAuthority('ROLE_moderator')")
   public void deleteBookReview(@PathVariable String isbn, @PathVariable Long reviewId) {
@@ -55,7 +194,66 @@ public class ReviewController {
   }
 
   @GetMapping("/{isbn}/reviews/{reviewId}")
-  public ObjectNode getReviewById(@PathVariable String isbn, @PathVariable Long reviewId) {
+  public ReviewView getReviewById(@PathVariable String isbn, @PathVariable Long reviewId) {
     return reviewService.getReviewById(isbn, reviewId);
   }
+
+  @ExceptionHandler(ConstraintViolationException.class)
+  public void handleConstraintViolation(ConstraintViolationException exception,
+                                        HttpServletResponse response) throws IOException {
+    response.sendError(HttpStatus.BAD_REQUEST.value(), exception.getMessage());
+  }
+
+  private ResponseEntity<ReviewIngestionStatus> enqueueBookReview(String isbn, BookReviewRequest bookReviewRequest,
+                                                                  String userName, String email,
+                                                                  UriComponentsBuilder uriComponentsBuilder) {
+    ReviewIngestionStatus status = reviewIngestion.enqueue(isbn, bookReviewRequest, userName, email);
+
+    UriComponents uriComponents = uriComponentsBuilder.path("/api/books/reviews/ingestion/{ticketId}")
+      .buildAndExpand(status.getTicketId());
+    return ResponseEntity.accepted()
+      .location(uriComponents.toUri())
+      .header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC)
+      .body(status);
+  }
+
+  /**
+   * @param headerValues the {@code Prefer} header lines, each a comma separated list of preferences that may
+   *                     carry a value and parameters, e.g. {@code respond-async, wait=5} or
+   *                     {@code handling=lenient; foo, respond-async}
+   */
+  static boolean prefersAsync(List<String> headerValues) {
+    if (headerValues == null) {
+      return false;
+    }
+
+    for (String headerValue : headerValues) {
+      for (String preference : headerValue.split(",")) {
+        String token = preference.split("[;=]", 2)[0].trim();
+
+        if (token.equalsIgnoreCase(RESPOND_ASYNC)) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private ResponseEntity<List<?>> toResponse(ReviewPage reviewPage, Set<ReviewField> fields) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+
+    if (reviewPage.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, reviewPage.getNextCursor());
+    }
+
+    if (fields == null) {
+      return response.body(reviewPage.getReviews());
+    }
+
+    return response.body(reviewPage.getReviews()
+      .stream()
+      .map(review -> ReviewField.select(review, fields))
+      .collect(Collectors.toList()));
+  }
 }
@@ -0,0 +1,20 @@
+package de.rieckpil.courses.book.review;
+
+public class ReviewCreatedEvent {
+
+  private final ReviewView review;
+  private final Long bookId;
+
+  public ReviewCreatedEvent(ReviewView review, Long bookId) {
+    this.review = review;
+    this.bookId = bookId;
+  }
+
+  public ReviewView getReview() {
+    return review;
+  }
+
+  public Long getBookId() {
+    return bookId;
+  }
+}
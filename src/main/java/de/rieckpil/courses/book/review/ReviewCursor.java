@@ -0,0 +1,52 @@
+package de.rieckpil.courses.book.review;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position within the reviews ordered by {@code (created_at DESC, id DESC)}.
+ */
+public class ReviewCursor {
+
+  private static final String SEPARATOR = "|";
+
+  private final LocalDateTime createdAt;
+  private final Long id;
+
+  public ReviewCursor(LocalDateTime createdAt, Long id) {
+    this.createdAt = createdAt;
+    this.id = id;
+  }
+
+  public static ReviewCursor decode(String token) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(SEPARATOR);
+
+      if (separator < 0) {
+        throw new InvalidCursorException(token);
+      }
+
+      return new ReviewCursor(
+        LocalDateTime.parse(decoded.substring(0, separator)),
+        Long.valueOf(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException(token);
+    }
+  }
+
+  public String encode() {
+    String raw = createdAt + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+}
@@ -0,0 +1,26 @@
+package de.rieckpil.courses.book.review;
+
+public class ReviewDeletedEvent {
+
+  private final Long reviewId;
+  private final Long bookId;
+  private final Integer rating;
+
+  public ReviewDeletedEvent(Long reviewId, Long bookId, Integer rating) {
+    this.reviewId = reviewId;
+    this.bookId = bookId;
+    this.rating = rating;
+  }
+
+  public Long getReviewId() {
+    return reviewId;
+  }
+
+  public Long getBookId() {
+    return bookId;
+  }
+
+  public Integer getRating() {
+    return rating;
+  }
+}
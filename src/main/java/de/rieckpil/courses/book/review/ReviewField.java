@@ -0,0 +1,80 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The fields of a {@link ReviewView} a client may select with {@code fields=}, together with the JPQL path that
+ * loads each of them. {@code reviewId} and {@code submittedAt} are part of the keyset cursor and always loaded.
+ */
+public enum ReviewField {
+
+  REVIEW_ID("reviewId", null, "", ReviewView::getReviewId),
+  REVIEW_CONTENT("reviewContent", "r.content", "", ReviewView::getReviewContent),
+  REVIEW_TITLE("reviewTitle", "r.title", "", ReviewView::getReviewTitle),
+  RATING("rating", "r.rating", "", ReviewView::getRating),
+  BOOK_ISBN("bookIsbn", "b.isbn", "JOIN r.book b ", ReviewView::getBookIsbn),
+  BOOK_TITLE("bookTitle", "b.title", "JOIN r.book b ", ReviewView::getBookTitle),
+  BOOK_THUMBNAIL_URL("bookThumbnailUrl", "b.thumbnailUrl", "JOIN r.book b ", ReviewView::getBookThumbnailUrl),
+  SUBMITTED_BY("submittedBy", "u.name", "JOIN r.user u ", ReviewView::getSubmittedBy),
+  SUBMITTED_AT("submittedAt", null, "", ReviewView::getSubmittedAt);
+
+  private final String name;
+  private final String path;
+  private final String join;
+  private final Function<ReviewView, Object> accessor;
+
+  ReviewField(String name, String path, String join, Function<ReviewView, Object> accessor) {
+    this.name = name;
+    this.path = path;
+    this.join = join;
+    this.accessor = accessor;
+  }
+
+  /**
+   * @return the selected fields, or {@code null} if the client did not restrict them
+   */
+  public static Set<ReviewField> parse(String fields) {
+    if (fields == null) {
+      return null;
+    }
+
+    Set<ReviewField> result = EnumSet.noneOf(ReviewField.class);
+
+    for (String name : fields.split(",")) {
+      result.add(Arrays.stream(values())
+        .filter(field -> field.name.equals(name.trim()))
+        .findFirst()
+        .orElseThrow(() -> new UnknownReviewFieldException(name)));
+    }
+
+    return Collections.unmodifiableSet(result);
+  }
+
+  public static Map<String, Object> select(ReviewView review, Set<ReviewField> fields) {
+    Map<String, Object> result = new LinkedHashMap<>();
+
+    for (ReviewField field : fields) {
+      result.put(field.name, field.accessor.apply(review));
+    }
+
+    return result;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public String getJoin() {
+    return join;
+  }
+}
@@ -0,0 +1,215 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Creates a review at most once per user and {@code Idempotency-Key} within the configured TTL and returns the
+ * id of the first execution for repeats. Recently completed keys are answered from a bounded LRU cache, older ones
+ * from their row in {@link ReviewIdempotencyKeyRepository}. Duplicates on the same node join the future of the
+ * execution in flight, without holding any lock during the database work, and duplicates on other nodes wait on
+ * the claimed row. Failed executions roll back their claim, so a retry runs again. Deleting a review forgets its
+ * key, as the key row is deleted along with it.
+ */
+@Component
+public class ReviewIdempotency {
+
+  static final int MAX_KEY_LENGTH = 255;
+
+  private final ReviewService reviewService;
+  private final ReviewIdempotencyKeyRepository reviewIdempotencyKeyRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration ttl;
+  private final Map<List<String>, CompletableFuture<CompletedReview>> inFlight = new ConcurrentHashMap<>();
+  private final Map<List<String>, CompletedReview> completed;
+  private final Map<Long, List<String>> completedIdentities = new ConcurrentHashMap<>();
+
+  public ReviewIdempotency(ReviewService reviewService,
+                           ReviewIdempotencyKeyRepository reviewIdempotencyKeyRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${reviews.idempotency.ttl:24h}") Duration ttl,
+                           @Value("${reviews.idempotency.cache-size:10000}") int cacheSize) {
+    this.reviewService = reviewService;
+    this.reviewIdempotencyKeyRepository = reviewIdempotencyKeyRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.ttl = ttl;
+    this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<String>, CompletedReview> eldest) {
+        if (size() <= cacheSize) {
+          return false;
+        }
+
+        completedIdentities.remove(eldest.getValue().reviewId, eldest.getKey());
+        return true;
+      }
+    });
+  }
+
+  public Long createBookReview(String isbn, BookReviewRequest bookReviewRequest, String userName, String email,
+                               String idempotencyKey) {
+    if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException();
+    }
+
+    List<String> identity = List.of(email, idempotencyKey);
+
+    while (true) {
+      Long reviewId = findCompleted(identity, isbn);
+
+      if (reviewId != null) {
+        return reviewId;
+      }
+
+      CompletableFuture<CompletedReview> execution = new CompletableFuture<>();
+      CompletableFuture<CompletedReview> running = inFlight.putIfAbsent(identity, execution);
+
+      if (running == null) {
+        return execute(identity, execution, isbn, bookReviewRequest, userName, email, idempotencyKey);
+      }
+
+      try {
+        return running.join().reviewIdFor(isbn, idempotencyKey);
+      } catch (CompletionException | CancellationException e) {
+        // the claim of the failed execution was rolled back, so this duplicate runs on its own
+      }
+    }
+  }
+
+  @Scheduled(cron = "${reviews.idempotency.cleanup-cron:0 30 * * * *}")
+  public int deleteExpired() {
+    long now = System.nanoTime();
+    List<Map.Entry<List<String>, CompletedReview>> expired;
+
+    synchronized (completed) {
+      expired = completed.entrySet().stream()
+        .filter(entry -> entry.getValue().isExpired(now, ttl))
+        .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+    }
+
+    expired.forEach(entry -> forget(entry.getKey(), entry.getValue()));
+
+    return transactionTemplate.execute(status ->
+      reviewIdempotencyKeyRepository.deleteExpired(LocalDateTime.now().minus(ttl)));
+  }
+
+  @TransactionalEventListener
+  public void onReviewDeleted(ReviewDeletedEvent event) {
+    List<String> identity = completedIdentities.get(event.getReviewId());
+
+    if (identity != null) {
+      CompletedReview review = completed.get(identity);
+
+      if (review != null && review.reviewId.equals(event.getReviewId())) {
+        forget(identity, review);
+      }
+    }
+  }
+
+  private Long execute(List<String> identity, CompletableFuture<CompletedReview> execution, String isbn,
+                       BookReviewRequest bookReviewRequest, String userName, String email, String idempotencyKey) {
+    try {
+      // an execution may have completed between the lookup and registering this one
+      Long reviewId = findCompleted(identity, isbn);
+
+      if (reviewId == null) {
+        reviewId = transactionTemplate.execute(status ->
+          claimAndCreate(isbn, bookReviewRequest, userName, email, idempotencyKey));
+      }
+
+      CompletedReview review = new CompletedReview(isbn, reviewId, System.nanoTime());
+      completed.put(identity, review);
+      completedIdentities.put(reviewId, identity);
+      execution.complete(review);
+
+      return reviewId;
+    } catch (RuntimeException | Error e) {
+      execution.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(identity, execution);
+    }
+  }
+
+  private void forget(List<String> identity, CompletedReview review) {
+    completed.remove(identity, review);
+    completedIdentities.remove(review.reviewId, identity);
+  }
+
+  private Long claimAndCreate(String isbn, BookReviewRequest bookReviewRequest, String userName, String email,
+                              String idempotencyKey) {
+    LocalDateTime now = LocalDateTime.now();
+
+    if (reviewIdempotencyKeyRepository.claim(email, idempotencyKey, isbn, now, now.minus(ttl)) == 0) {
+      ReviewIdempotencyKey existing = reviewIdempotencyKeyRepository
+        .findById(new ReviewIdempotencyKey.Key(email, idempotencyKey))
+        .orElseThrow();
+
+      if (!existing.getIsbn().equals(isbn)) {
+        throw new IdempotencyKeyReusedException(idempotencyKey);
+      }
+
+      return existing.getReviewId();
+    }
+
+    Long reviewId = reviewService.createBookReview(isbn, bookReviewRequest, userName, email);
+    reviewIdempotencyKeyRepository.complete(email, idempotencyKey, reviewId);
+    return reviewId;
+  }
+
+  private Long findCompleted(List<String> identity, String isbn) {
+    CompletedReview review = completed.get(identity);
+
+    if (review == null) {
+      return null;
+    }
+
+    if (review.isExpired(System.nanoTime(), ttl)) {
+      forget(identity, review);
+      return null;
+    }
+
+    return review.reviewIdFor(isbn, identity.get(1));
+  }
+
+  private static class CompletedReview {
+
+    private final String isbn;
+    private final Long reviewId;
+    private final long completedAt;
+
+    CompletedReview(String isbn, Long reviewId, long completedAt) {
+      this.isbn = isbn;
+      this.reviewId = reviewId;
+      this.completedAt = completedAt;
+    }
+
+    Long reviewIdFor(String isbn, String idempotencyKey) {
+      if (!this.isbn.equals(isbn)) {
+        throw new IdempotencyKeyReusedException(idempotencyKey);
+      }
+
+      return reviewId;
+    }
+
+    boolean isExpired(long now, Duration ttl) {
+      return now - completedAt >= ttl.toNanos();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package de.rieckpil.courses.book.review;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Remembers which review a client-supplied idempotency key created. The row is claimed in the same transaction
+ * as the review insert, so a concurrent duplicate on any node blocks on the primary key until that commits.
+ */
+@Entity
+@Table(name = "review_idempotency_keys")
+@IdClass(ReviewIdempotencyKey.Key.class)
+public class ReviewIdempotencyKey {
+
+  @Id
+  private String userEmail;
+
+  @Id
+  private String idempotencyKey;
+
+  @Column(nullable = false)
+  private String isbn;
+
+  private Long reviewId;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  public String getUserEmail() {
+    return userEmail;
+  }
+
+  public void setUserEmail(String userEmail) {
+    this.userEmail = userEmail;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public void setIsbn(String isbn) {
+    this.isbn = isbn;
+  }
+
+  public Long getReviewId() {
+    return reviewId;
+  }
+
+  public void setReviewId(Long reviewId) {
+    this.reviewId = reviewId;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public static class Key implements Serializable {
+
+    private String userEmail;
+    private String idempotencyKey;
+
+    public Key() {
+    }
+
+    public Key(String userEmail, String idempotencyKey) {
+      this.userEmail = userEmail;
+      this.idempotencyKey = idempotencyKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return Objects.equals(userEmail, key.userEmail) && Objects.equals(idempotencyKey, key.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userEmail, idempotencyKey);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ReviewIdempotencyKeyRepository extends JpaRepository<ReviewIdempotencyKey, ReviewIdempotencyKey.Key> {
+
+  /**
+   * Claims the key for a new execution and returns 1, or returns 0 if an unexpired execution already owns it.
+   * Waits for a concurrent, uncommitted claim of the same key to finish first.
+   */
+  @Modifying
+  @Query(value =
+    "INSERT INTO review_idempotency_keys (user_email, idempotency_key, isbn, created_at) " +
+      "VALUES (:email, :key, :isbn, :now) " +
+      "ON CONFLICT (user_email, idempotency_key) DO UPDATE " +
+      "SET isbn = EXCLUDED.isbn, review_id = NULL, created_at = EXCLUDED.created_at " +
+      "WHERE review_idempotency_keys.created_at < :expiredBefore",
+    nativeQuery = true)
+  int claim(@Param("email") String email, @Param("key") String key, @Param("isbn") String isbn,
+            @Param("now") LocalDateTime now, @Param("expiredBefore") LocalDateTime expiredBefore);
+
+  @Modifying
+  @Query("UPDATE ReviewIdempotencyKey k SET k.reviewId = :reviewId " +
+    "WHERE k.userEmail = :email AND k.idempotencyKey = :key")
+  int complete(@Param("email") String email, @Param("key") String key, @Param("reviewId") Long reviewId);
+
+  @Modifying
+  @Query("DELETE FROM ReviewIdempotencyKey k WHERE k.createdAt < :expiredBefore")
+  int deleteExpired(@Param("expiredBefore") LocalDateTime expiredBefore);
+}
@@ -0,0 +1,181 @@
+package de.rieckpil.courses.book.review;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts reviews into a bounded in-memory queue and stores them in batches through
+ * {@link ReviewService#createBookReviews}, so the submitting request does not wait for verification and the
+ * inserts. Rejects new reviews once the queue is full. Queued reviews are lost if the instance dies before they
+ * are written.
+ * <p>
+ * The queue is drained on a dedicated thread rather than the shared scheduler, so long-running scheduled jobs
+ * such as the statistics reconciliation don't hold it up.
+ */
+@Component
+public class ReviewIngestion {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewIngestion.class);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+  private final ReviewService reviewService;
+  private final BlockingQueue<PendingReview> queue;
+  private final Map<String, ReviewIngestionStatus> statuses;
+  private final int batchSize;
+  private final Duration drainInterval;
+  private final Timer latency;
+  private ScheduledExecutorService drainer;
+
+  public ReviewIngestion(ReviewService reviewService,
+                         MeterRegistry meterRegistry,
+                         @Value("${reviews.ingestion.queue-capacity:1000}") int queueCapacity,
+                         @Value("${reviews.ingestion.batch-size:100}") int batchSize,
+                         @Value("${reviews.ingestion.drain-interval:100ms}") Duration drainInterval,
+                         @Value("${reviews.ingestion.status-retention:10000}") int statusRetention) {
+    this.reviewService = reviewService;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.drainInterval = drainInterval;
+    this.statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ReviewIngestionStatus> eldest) {
+        return size() > statusRetention;
+      }
+    });
+
+    Gauge.builder("reviews.ingestion.queue.depth", queue, Collection::size)
+      .description("Reviews accepted but not yet written")
+      .register(meterRegistry);
+    this.latency = Timer.builder("reviews.ingestion.latency")
+      .description("Time from accepting a review until it is written")
+      .register(meterRegistry);
+  }
+
+  public ReviewIngestionStatus enqueue(String isbn, BookReviewRequest request, String userName, String email) {
+    String ticketId = UUID.randomUUID().toString();
+    ReviewIngestionStatus pending = ReviewIngestionStatus.pending(ticketId);
+
+    statuses.put(ticketId, pending);
+
+    PendingReview review = new PendingReview(ticketId, userName, email, System.nanoTime(),
+      new BookReviewBatchItem(isbn, request.getReviewTitle(), request.getReviewContent(), request.getRating()));
+
+    if (!queue.offer(review)) {
+      statuses.remove(ticketId);
+      throw new ReviewIngestionQueueFullException();
+    }
+
+    return pending;
+  }
+
+  public ReviewIngestionStatus getStatus(String ticketId) {
+    ReviewIngestionStatus status = statuses.get(ticketId);
+
+    if (status == null) {
+      throw new ReviewIngestionNotFoundException();
+    }
+
+    return status;
+  }
+
+  @PostConstruct
+  public void start() {
+    drainer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("review-ingestion-"));
+    drainer.scheduleWithFixedDelay(() -> {
+      try {
+        drain();
+      } catch (RuntimeException e) {
+        // an escaping exception would cancel all further runs
+        LOG.error("Failed to drain the review ingestion queue", e);
+      }
+    }, drainInterval.toNanos(), drainInterval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  public int drain() {
+    int written = 0;
+    List<PendingReview> batch = new ArrayList<>(batchSize);
+
+    while (queue.drainTo(batch, batchSize) > 0) {
+      // createBookReviews stores all items for one user, so a mixed batch is split by submitter
+      Map<List<String>, List<PendingReview>> bySubmitter = batch.stream()
+        .collect(Collectors.groupingBy(review -> List.of(review.userName, review.email), LinkedHashMap::new,
+          Collectors.toList()));
+
+      bySubmitter.values().forEach(this::write);
+
+      written += batch.size();
+      batch.clear();
+    }
+
+    return written;
+  }
+
+  @PreDestroy
+  public void flush() throws InterruptedException {
+    if (drainer != null) {
+      drainer.shutdown();
+      drainer.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    int written = drain();
+
+    if (written > 0) {
+      LOG.info("Wrote {} queued review(s) on shutdown", written);
+    }
+  }
+
+  private void write(List<PendingReview> reviews) {
+    try {
+      List<BookReviewBatchResult> results = reviewService.createBookReviews(
+        reviews.stream().map(review -> review.item).collect(Collectors.toList()),
+        reviews.get(0).userName, reviews.get(0).email);
+
+      for (int i = 0; i < reviews.size(); i++) {
+        complete(reviews.get(i), ReviewIngestionStatus.from(reviews.get(i).ticketId, results.get(i)));
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Failed to write {} queued review(s)", reviews.size(), e);
+      reviews.forEach(review -> complete(review,
+        new ReviewIngestionStatus(review.ticketId, ReviewIngestionStatus.Status.FAILED, null)));
+    }
+  }
+
+  private void complete(PendingReview review, ReviewIngestionStatus status) {
+    statuses.put(review.ticketId, status);
+    latency.record(System.nanoTime() - review.acceptedAt, TimeUnit.NANOSECONDS);
+  }
+
+  private static class PendingReview {
+
+    private final String ticketId;
+    private final String userName;
+    private final String email;
+    private final long acceptedAt;
+    private final BookReviewBatchItem item;
+
+    PendingReview(String ticketId, String userName, String email, long acceptedAt, BookReviewBatchItem item) {
+      this.ticketId = ticketId;
+      this.userName = userName;
+      this.email = email;
+      this.acceptedAt = acceptedAt;
+      this.item = item;
+    }
+  }
+}
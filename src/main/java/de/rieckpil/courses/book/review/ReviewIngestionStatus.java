@@ -0,0 +1,41 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReviewIngestionStatus {
+
+  public enum Status {
+    PENDING, CREATED, BOOK_NOT_FOUND, BAD_REVIEW_QUALITY, FAILED
+  }
+
+  private final String ticketId;
+  private final Status status;
+  private final Long reviewId;
+
+  public ReviewIngestionStatus(String ticketId, Status status, Long reviewId) {
+    this.ticketId = ticketId;
+    this.status = status;
+    this.reviewId = reviewId;
+  }
+
+  static ReviewIngestionStatus pending(String ticketId) {
+    return new ReviewIngestionStatus(ticketId, Status.PENDING, null);
+  }
+
+  static ReviewIngestionStatus from(String ticketId, BookReviewBatchResult result) {
+    return new ReviewIngestionStatus(ticketId, Status.valueOf(result.getStatus().name()), result.getReviewId());
+  }
+
+  public String getTicketId() {
+    return ticketId;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Long getReviewId() {
+    return reviewId;
+  }
+}
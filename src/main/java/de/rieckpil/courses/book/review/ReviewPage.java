@@ -0,0 +1,51 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ReviewPage {
+
+  private final List<ReviewView> reviews;
+  private final String nextCursor;
+
+  public ReviewPage(List<ReviewView> reviews, String nextCursor) {
+    this.reviews = reviews;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<ReviewView> getReviews() {
+    return reviews;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public String getETag() {
+    return eTagOf(reviews, nextCursor);
+  }
+
+  /**
+   * Weak ETag derived from the reviews themselves, for results read from the database. Unlike the write-version
+   * counter it also changes when another instance or a plain SQL statement modified the rows.
+   */
+  static String eTagOf(List<ReviewView> reviews, String nextCursor) {
+    StringBuilder content = new StringBuilder().append(nextCursor);
+
+    for (ReviewView review : reviews) {
+      content.append('\u0000').append(review.getReviewId())
+        .append('\u0000').append(review.getReviewContent())
+        .append('\u0000').append(review.getReviewTitle())
+        .append('\u0000').append(review.getRating())
+        .append('\u0000').append(review.getBookIsbn())
+        .append('\u0000').append(review.getBookTitle())
+        .append('\u0000').append(review.getBookThumbnailUrl())
+        .append('\u0000').append(review.getSubmittedBy())
+        .append('\u0000').append(review.getCreatedAt());
+    }
+
+    return "W/\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+}
@@ -3,26 +3,128 @@ package de.rieckpil.courses.book.review;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewRepositoryCustom {
 
+  /**
+   * Selects exactly the columns rendered by {@link ReviewView} in one joined statement, so listings neither load
+   * the full {@code Book} (including its {@code description}) nor issue follow-up selects per review.
+   */
+  String REVIEW_VIEW_QUERY =
+    "SELECT new de.rieckpil.courses.book.review.ReviewView(" +
+      "r.id, r.content, r.title, r.rating, b.isbn, b.title, b.thumbnailUrl, u.name, r.createdAt) " +
+      "FROM Review r JOIN r.book b JOIN r.user u ";
+
+  /**
+   * Completes a {@code WITH deleted AS (DELETE ... RETURNING id, book_id, rating} statement: subtracts the deleted
+   * ratings from {@code book_review_stats} per book and returns the deleted rows, all in one round trip.
+   */
+  String SUBTRACT_DELETED_FROM_STATISTICS =
+    "), removed AS (" +
+      "  SELECT book_id, COUNT(*) AS ratings, SUM(rating) AS rating_sum, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 0) AS rating_0_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 1) AS rating_1_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 2) AS rating_2_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 3) AS rating_3_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 4) AS rating_4_count, " +
+      "    COUNT(*) FILTER (WHERE LEAST(rating, 5) = 5) AS rating_5_count " +
+      "  FROM deleted WHERE book_id IS NOT NULL GROUP BY book_id" +
+      "), adjusted AS (" +
+      "  UPDATE book_review_stats s " +
+      "  SET ratings = s.ratings - d.ratings, rating_sum = s.rating_sum - d.rating_sum, " +
+      "    rating_0_count = s.rating_0_count - d.rating_0_count, " +
+      "    rating_1_count = s.rating_1_count - d.rating_1_count, " +
+      "    rating_2_count = s.rating_2_count - d.rating_2_count, " +
+      "    rating_3_count = s.rating_3_count - d.rating_3_count, " +
+      "    rating_4_count = s.rating_4_count - d.rating_4_count, " +
+      "    rating_5_count = s.rating_5_count - d.rating_5_count " +
+      "  FROM removed d WHERE s.book_id = d.book_id" +
+      ") " +
+      "SELECT id AS \"reviewId\", book_id AS \"bookId\", rating AS \"rating\" FROM deleted";
+
+  /**
+   * Matches against the generated {@code search_vector} column (GIN indexed), ranking title hits above content hits.
+   */
   @Query(value =
-    "SELECT id, ratings, isbn, avg " +
-      "FROM books " +
-      "JOIN " +
-      "(SELECT book_id, ROUND(AVG(rating), 2) AS avg, COUNT(*) ratings FROM reviews group by book_id) AS statistics " +
-      "ON statistics.book_id = id;",
+    "SELECT r.id AS \"reviewId\", r.content AS \"reviewContent\", r.title AS \"reviewTitle\", r.rating AS \"rating\", " +
+      "b.isbn AS \"bookIsbn\", b.title AS \"bookTitle\", b.thumbnail_url AS \"bookThumbnailUrl\", " +
+      "u.name AS \"submittedBy\", r.created_at AS \"createdAt\" " +
+      "FROM reviews r " +
+      "JOIN books b ON b.id = r.book_id " +
+      "JOIN users u ON u.id = r.user_id " +
+      "CROSS JOIN websearch_to_tsquery('english', :query) AS query " +
+      "WHERE r.search_vector @@ query " +
+      "ORDER BY ts_rank(r.search_vector, query) DESC, r.id DESC " +
+      "LIMIT :limit OFFSET :offset",
     nativeQuery = true)
-  List<ReviewStatistic> getReviewStatistics();
+  List<ReviewSearchResult> searchReviews(@Param("query") String query,
+                                         @Param("limit") int limit,
+                                         @Param("offset") long offset);
+
+  @Query(REVIEW_VIEW_QUERY + "ORDER BY r.rating DESC, r.createdAt DESC, r.id DESC")
+  List<ReviewView> findTopRatedViews(Pageable pageable);
+
+  @Query(REVIEW_VIEW_QUERY + "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestViews(Pageable pageable);
+
+  @Query(REVIEW_VIEW_QUERY +
+    "WHERE (r.createdAt, r.id) < (:createdAt, :id) " +
+    "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestViewsCreatedBefore(@Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+  @Query(REVIEW_VIEW_QUERY +
+    "WHERE b.isbn = :isbn " +
+    "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestViewsByBookIsbn(@Param("isbn") String isbn, Pageable pageable);
+
+  @Query(REVIEW_VIEW_QUERY +
+    "WHERE b.isbn = :isbn AND (r.createdAt, r.id) < (:createdAt, :id) " +
+    "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestViewsByBookIsbnCreatedBefore(@Param("isbn") String isbn,
+                                                          @Param("createdAt") LocalDateTime createdAt,
+                                                          @Param("id") Long id,
+                                                          Pageable pageable);
+
+  @Query(REVIEW_VIEW_QUERY + "WHERE r.id = :reviewId AND b.isbn = :isbn")
+  Optional<ReviewView> findViewByIdAndBookIsbn(@Param("reviewId") Long reviewId, @Param("isbn") String isbn);
 
-  List<Review> findTop5ByOrderByRatingDescCreatedAtDesc();
+  @Query(value =
+    "WITH deleted AS (" +
+      "  DELETE FROM reviews WHERE id = :reviewId AND book_id = (SELECT id FROM books WHERE isbn = :isbn) " +
+      "  RETURNING id, book_id, rating" +
+      SUBTRACT_DELETED_FROM_STATISTICS,
+    nativeQuery = true)
+  List<DeletedReview> deleteByIdAndBookIsbn(@Param("reviewId") Long reviewId, @Param("isbn") String isbn);
 
-  List<Review> findAllByOrderByCreatedAtDesc(Pageable pageable);
+  @Query(value =
+    "WITH deleted AS (" +
+      "  DELETE FROM reviews WHERE id IN (:reviewIds) " +
+      "  RETURNING id, book_id, rating" +
+      SUBTRACT_DELETED_FROM_STATISTICS,
+    nativeQuery = true)
+  List<DeletedReview> deleteAllByIdIn(@Param("reviewIds") Collection<Long> reviewIds);
 
-  void deleteByIdAndBookIsbn(Long reviewId, String isbn);
+  @Query(value =
+    "WITH deleted AS (" +
+      "  DELETE FROM reviews WHERE user_id = (SELECT id FROM users WHERE email = :email) " +
+      "  RETURNING id, book_id, rating" +
+      SUBTRACT_DELETED_FROM_STATISTICS,
+    nativeQuery = true)
+  List<DeletedReview> deleteAllByUserEmail(@Param("email") String email);
 
-  Optional<Review> findByIdAndBookIsbn(Long reviewId, String isbn);
+  @Query(value =
+    "WITH deleted AS (" +
+      "  DELETE FROM reviews WHERE book_id = (SELECT id FROM books WHERE isbn = :isbn) " +
+      "  RETURNING id, book_id, rating" +
+      SUBTRACT_DELETED_FROM_STATISTICS,
+    nativeQuery = true)
+  List<DeletedReview> deleteAllByBookIsbn(@Param("isbn") String isbn);
 }
@@ -0,0 +1,16 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ReviewRepositoryCustom {
+
+  /**
+   * Loads the newest reviews like {@link ReviewRepository#findLatestViews}, but only selects (and joins) what the
+   * given fields need. Columns that are not requested stay {@code null} in the returned views.
+   *
+   * @param isbn   restricts the reviews to one book if not {@code null}
+   * @param cursor continues after this keyset position if not {@code null}
+   */
+  List<ReviewView> findLatestViews(Set<ReviewField> fields, String isbn, ReviewCursor cursor, int limit);
+}
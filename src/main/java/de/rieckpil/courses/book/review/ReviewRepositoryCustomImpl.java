@@ -0,0 +1,76 @@
+package de.rieckpil.courses.book.review;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+  private final EntityManager entityManager;
+
+  ReviewRepositoryCustomImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<ReviewView> findLatestViews(Set<ReviewField> fields, String isbn, ReviewCursor cursor, int limit) {
+    StringJoiner select = new StringJoiner(", ", "SELECT ", " ");
+    Set<String> joins = new LinkedHashSet<>();
+
+    select.add("r.id AS cursorId").add("r.createdAt AS cursorCreatedAt");
+
+    for (ReviewField field : fields) {
+      if (field.getPath() != null) {
+        select.add(field.getPath() + " AS " + field.getName());
+        joins.add(field.getJoin());
+      }
+    }
+
+    StringJoiner where = new StringJoiner(" AND ", "WHERE ", " ").setEmptyValue("");
+
+    if (isbn != null) {
+      joins.add(ReviewField.BOOK_ISBN.getJoin());
+      where.add("b.isbn = :isbn");
+    }
+
+    if (cursor != null) {
+      where.add("(r.createdAt, r.id) < (:createdAt, :id)");
+    }
+
+    TypedQuery<Tuple> query = entityManager.createQuery(
+      select + "FROM Review r " + String.join("", joins) + where + "ORDER BY r.createdAt DESC, r.id DESC", Tuple.class);
+
+    if (isbn != null) {
+      query.setParameter("isbn", isbn);
+    }
+
+    if (cursor != null) {
+      query.setParameter("createdAt", cursor.getCreatedAt());
+      query.setParameter("id", cursor.getId());
+    }
+
+    return query.setMaxResults(limit)
+      .getResultStream()
+      .map(tuple -> new ReviewView(
+        tuple.get("cursorId", Long.class),
+        get(tuple, fields, ReviewField.REVIEW_CONTENT, String.class),
+        get(tuple, fields, ReviewField.REVIEW_TITLE, String.class),
+        get(tuple, fields, ReviewField.RATING, Integer.class),
+        get(tuple, fields, ReviewField.BOOK_ISBN, String.class),
+        get(tuple, fields, ReviewField.BOOK_TITLE, String.class),
+        get(tuple, fields, ReviewField.BOOK_THUMBNAIL_URL, String.class),
+        get(tuple, fields, ReviewField.SUBMITTED_BY, String.class),
+        tuple.get("cursorCreatedAt", LocalDateTime.class)))
+      .collect(Collectors.toList());
+  }
+
+  private static <T> T get(Tuple tuple, Set<ReviewField> fields, ReviewField field, Class<T> type) {
+    return fields.contains(field) ? tuple.get(field.getName(), type) : null;
+  }
+}
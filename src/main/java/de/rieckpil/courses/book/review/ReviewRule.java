@@ -0,0 +1,25 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.core.Ordered;
+
+/**
+ * One quality check applied by {@link ReviewVerifier}. The order doubles as the relative cost of the rule, so
+ * cheap rules run first and can reject a review before the expensive ones run.
+ */
+public interface ReviewRule extends Ordered {
+
+  /**
+   * @return a short, stable name, used to tag the verification metrics
+   */
+  String getName();
+
+  boolean accepts(String review);
+
+  /**
+   * Expensive rules only run once all cheap rules accepted the review. They run in parallel and have to finish
+   * within the verification deadline.
+   */
+  default boolean isExpensive() {
+    return false;
+  }
+}
@@ -0,0 +1,23 @@
+package de.rieckpil.courses.book.review;
+
+import java.time.LocalDateTime;
+
+public interface ReviewSearchResult {
+  Long getReviewId();
+
+  String getReviewContent();
+
+  String getReviewTitle();
+
+  Integer getRating();
+
+  String getBookIsbn();
+
+  String getBookTitle();
+
+  String getBookThumbnailUrl();
+
+  String getSubmittedBy();
+
+  LocalDateTime getCreatedAt();
+}
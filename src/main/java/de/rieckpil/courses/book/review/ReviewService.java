@@ -1,48 +1,90 @@
 package de.rieckpil.courses.book.review;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.BookRepository;
+import de.rieckpil.courses.book.management.BookSummary;
+import de.rieckpil.courses.book.management.BookSummaryCache;
+import de.rieckpil.courses.book.management.User;
 import de.rieckpil.courses.book.management.UserService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ReviewService {
 
+  static final int MAX_DELETED_IDS = 500;
+  static final int DEFAULT_STATISTICS_PAGE_SIZE = 100;
+
   private final ReviewVerifier reviewVerifier;
   private final UserService userService;
   private final BookRepository bookRepository;
+  private final BookSummaryCache bookSummaryCache;
   private final ReviewRepository reviewRepository;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final BookReviewStatsRepository bookReviewStatsRepository;
+  private final ReviewStatisticsAggregator reviewStatisticsAggregator;
+  private final LatestReviewsBuffer latestReviewsBuffer;
+  private final TopRatedReviews topRatedReviews;
+  private final ReviewContentVersion reviewContentVersion;
+  private final ReviewStream reviewStream;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public ReviewService(ReviewVerifier reviewVerifier, UserService userService, BookRepository bookRepository, ReviewRepository reviewRepository) {
+  public ReviewService(ReviewVerifier reviewVerifier, UserService userService, BookRepository bookRepository,
+                       BookSummaryCache bookSummaryCache, ReviewRepository reviewRepository, BookReviewStatsRepository bookReviewStatsRepository,
+                       ReviewStatisticsAggregator reviewStatisticsAggregator,
+                       LatestReviewsBuffer latestReviewsBuffer, TopRatedReviews topRatedReviews,
+                       ReviewContentVersion reviewContentVersion, ReviewStream reviewStream,
+                       ApplicationEventPublisher eventPublisher) {
     this.reviewVerifier = reviewVerifier;
     this.userService = userService;
     this.bookRepository = bookRepository;
+    this.bookSummaryCache = bookSummaryCache;
     this.reviewRepository = reviewRepository;
+    this.bookReviewStatsRepository = bookReviewStatsRepository;
+    this.reviewStatisticsAggregator = reviewStatisticsAggregator;
+    this.latestReviewsBuffer = latestReviewsBuffer;
+    this.topRatedReviews = topRatedReviews;
+    this.reviewContentVersion = reviewContentVersion;
+    this.reviewStream = reviewStream;
+    this.eventPublisher = eventPublisher;
   }
 
-  public Long createBookReview(String isbn, BookReviewRequest bookReviewRequest, String userName, String email) {
+  public String getReviewsETag() {
+    return reviewContentVersion.getETag();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildTopRatedReviews() {
+    topRatedReviews.read(topRatedReviews.getCapacity(), this::loadTopRatedReviews);
+  }
 
-    Book book = bookRepository.findByIsbn(isbn);
+  public Long createBookReview(String isbn, BookReviewRequest bookReviewRequest, String userName, String email) {
 
-    if (book == null) {
-      throw new IllegalArgumentException("Book not found");
-    }
+    BookSummary book = bookSummaryCache.find(isbn)
+      .orElseThrow(() -> new IllegalArgumentException("Book not found"));
 
     if (reviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())) {
       Review review = new Review();
 
-      review.setBook(book);
+      // only the foreign key is written, so an uninitialized reference avoids loading the book row
+      review.setBook(bookRepository.getReferenceById(book.getId()));
       review.setContent(bookReviewRequest.getReviewContent());
       review.setTitle(bookReviewRequest.getReviewTitle());
       review.setRating(bookReviewRequest.getRating());
@@ -50,6 +92,9 @@ public class ReviewService {
       review.setCreatedAt(LocalDateTime.now());
 
       review = reviewRepository.save(review);
+      bookReviewStatsRepository.addRating(book.getId(), review.getRating());
+
+      eventPublisher.publishEvent(new ReviewCreatedEvent(ReviewView.from(review, book), book.getId()));
 
       return review.getId();
     } else {
@@ -57,67 +102,224 @@ public class ReviewService {
     }
   }
 
-  public ArrayNode getReviewStatistics() {
-    ArrayNode result = objectMapper.createArrayNode();
-
-    reviewRepository.getReviewStatistics()
+  /**
+   * Stores all acceptable reviews of the batch with one book query, one user lookup, batched inserts and one
+   * statistics upsert per book. Items for unknown books or failing the quality check are skipped and reported in
+   * the result at their index.
+   */
+  public List<BookReviewBatchResult> createBookReviews(List<BookReviewBatchItem> items, String userName, String email) {
+    Map<String, Book> books = bookRepository
+      .findByIsbnIn(items.stream().map(BookReviewBatchItem::getIsbn).collect(Collectors.toSet()))
       .stream()
-      .map(this::mapReviewStatistic)
-      .forEach(result::add);
+      .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+    User user = userService.getOrCreateUser(userName, email);
+    LocalDateTime now = LocalDateTime.now();
+
+    BookReviewBatchResult[] results = new BookReviewBatchResult[items.size()];
+    List<Integer> indices = new ArrayList<>();
+    List<Review> reviews = new ArrayList<>();
+
+    for (int i = 0; i < items.size(); i++) {
+      BookReviewBatchItem item = items.get(i);
+      Book book = books.get(item.getIsbn());
+
+      if (book == null) {
+        results[i] = new BookReviewBatchResult(i, BookReviewBatchResult.Status.BOOK_NOT_FOUND, null);
+      } else if (!reviewVerifier.doesMeetQualityStandards(item.getReviewContent())) {
+        results[i] = new BookReviewBatchResult(i, BookReviewBatchResult.Status.BAD_REVIEW_QUALITY, null);
+      } else {
+        Review review = new Review();
+        review.setBook(book);
+        review.setContent(item.getReviewContent());
+        review.setTitle(item.getReviewTitle());
+        review.setRating(item.getRating());
+        review.setUser(user);
+        review.setCreatedAt(now);
+
+        indices.add(i);
+        reviews.add(review);
+      }
+    }
+
+    List<Review> saved = reviewRepository.saveAll(reviews);
+    // sorted by book, so concurrent batches lock the statistics rows in the same order
+    Map<Long, long[]> ratingTotals = new TreeMap<>();
 
-    return result;
+    for (int i = 0; i < saved.size(); i++) {
+      Review review = saved.get(i);
+      Long bookId = review.getBook().getId();
+
+      addToRatingTotals(ratingTotals.computeIfAbsent(bookId, id -> new long[8]), review.getRating());
+      eventPublisher.publishEvent(new ReviewCreatedEvent(ReviewView.from(review), bookId));
+
+      results[indices.get(i)] = new BookReviewBatchResult(indices.get(i), BookReviewBatchResult.Status.CREATED,
+        review.getId());
+    }
+
+    ratingTotals.forEach((bookId, totals) -> bookReviewStatsRepository.addRatings(bookId, totals[0], totals[1],
+      totals[2], totals[3], totals[4], totals[5], totals[6], totals[7]));
+
+    return List.of(results);
+  }
+
+  /**
+   * @param totals count, sum and the six histogram buckets; ratings above 5 count into the top bucket
+   */
+  private static void addToRatingTotals(long[] totals, int rating) {
+    totals[0]++;
+    totals[1] += rating;
+    totals[2 + Math.min(rating, 5)]++;
+  }
+
+  public Flux<ServerSentEvent<ReviewView>> streamCreatedReviews() {
+    return reviewStream.createdReviewEvents();
   }
 
-  public ArrayNode getAllReviews(Integer size, String orderBy) {
-    ArrayNode result = objectMapper.createArrayNode();
+  /**
+   * Returns the statistics of all books unless a {@code page} or {@code size} is requested.
+   */
+  public ReviewStatisticPage getReviewStatistics(String isbn, String orderBy, Integer page, Integer size) {
+    if (isbn != null) {
+      List<ReviewStatisticView> result = reviewStatisticsAggregator.find(isbn).map(List::of).orElse(List.of());
+      return new ReviewStatisticPage(result, result.size());
+    }
+
+    List<ReviewStatisticView> statistics = reviewStatisticsAggregator.snapshot(orderBy);
+
+    if (page == null && size == null) {
+      return new ReviewStatisticPage(statistics, statistics.size());
+    }
+
+    int pageSize = size == null ? DEFAULT_STATISTICS_PAGE_SIZE : size;
+    int from = (int) Math.min((long) (page == null ? 0 : page) * pageSize, statistics.size());
+    int to = Math.min(from + pageSize, statistics.size());
 
-    List<Review> requestedReviews;
+    return new ReviewStatisticPage(statistics.subList(from, to), statistics.size());
+  }
 
+  public List<RatingDistributionView> getRatingDistributions() {
+    return reviewStatisticsAggregator.distributions();
+  }
+
+  /**
+   * @param fields the fields the client selected, or {@code null} for all of them. Pages read from the database
+   *               then only load these columns; pages served from memory are trimmed by the caller.
+   */
+  public ReviewPage getAllReviews(Integer size, String orderBy, String after, Set<ReviewField> fields) {
     if (orderBy.equals("rating")) {
-      requestedReviews = reviewRepository.findTop5ByOrderByRatingDescCreatedAtDesc();
+      return new ReviewPage(
+        topRatedReviews.read(Math.min(size, topRatedReviews.getCapacity()), this::loadTopRatedReviews), null);
+    }
+
+    List<ReviewView> result;
+
+    if (after == null) {
+      result = latestReviewsBuffer.read(size, this::loadLatestReviews);
+    } else if (fields != null) {
+      result = reviewRepository.findLatestViews(fields, null, ReviewCursor.decode(after), size);
+    } else {
+      ReviewCursor cursor = ReviewCursor.decode(after);
+      result = reviewRepository.findLatestViewsCreatedBefore(cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size));
+    }
+
+    return new ReviewPage(result, nextCursor(result, size));
+  }
+
+  public ReviewPage getReviewsForBook(String isbn, Integer size, String after, Set<ReviewField> fields) {
+    ReviewCursor cursor = after != null ? ReviewCursor.decode(after) : null;
+    List<ReviewView> result;
+
+    if (fields != null) {
+      result = reviewRepository.findLatestViews(fields, isbn, cursor, size);
+    } else if (cursor != null) {
+      result = reviewRepository.findLatestViewsByBookIsbnCreatedBefore(isbn, cursor.getCreatedAt(), cursor.getId(),
+        PageRequest.of(0, size));
     } else {
-      requestedReviews = reviewRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, size));
+      result = reviewRepository.findLatestViewsByBookIsbn(isbn, PageRequest.of(0, size));
     }
 
-    requestedReviews
+    return new ReviewPage(result, nextCursor(result, size));
+  }
+
+  public List<ReviewView> searchReviews(String query, Integer page, Integer size) {
+    return reviewRepository.searchReviews(query, size, (long) page * size)
       .stream()
-      .map(this::mapReview)
-      .forEach(result::add);
+      .map(ReviewView::from)
+      .collect(Collectors.toList());
+  }
 
-    return result;
+  private List<ReviewView> loadLatestReviews(int limit) {
+    return reviewRepository.findLatestViews(PageRequest.of(0, limit));
   }
 
-  private ObjectNode mapReview(Review review) {
-    ObjectNode objectNode = objectMapper.createObjectNode();
-    objectNode.put("reviewId", review.getId());
-    objectNode.put("reviewContent", review.getContent());
-    objectNode.put("reviewTitle", review.getTitle());
-    objectNode.put("rating", review.getRating());
-    objectNode.put("bookIsbn", review.getBook().getIsbn());
-    objectNode.put("bookTitle", review.getBook().getTitle());
-    objectNode.put("bookThumbnailUrl", review.getBook().getThumbnailUrl());
-    objectNode.put("submittedBy", review.getUser().getName());
-    objectNode.put("submittedAt",
-      review.getCreatedAt().atZone(ZoneId.of("Europe/Berlin")).toInstant().toEpochMilli());
-    return objectNode;
+  private List<ReviewView> loadTopRatedReviews(int limit) {
+    return reviewRepository.findTopRatedViews(PageRequest.of(0, limit));
   }
 
-  private ObjectNode mapReviewStatistic(ReviewStatistic reviewStatistic) {
-    ObjectNode statistic = objectMapper.createObjectNode();
-    statistic.put("bookId", reviewStatistic.getId());
-    statistic.put("isbn", reviewStatistic.getIsbn());
-    statistic.put("avg", reviewStatistic.getAvg());
-    statistic.put("ratings", reviewStatistic.getRatings());
-    return statistic;
+  private String nextCursor(List<ReviewView> reviews, Integer size) {
+    if (reviews.isEmpty() || reviews.size() < size) {
+      return null;
+    }
+
+    ReviewView last = reviews.get(reviews.size() - 1);
+    return new ReviewCursor(last.getCreatedAt(), last.getReviewId()).encode();
   }
 
   public void deleteReview(String isbn, Long reviewId) {
-    this.reviewRepository.deleteByIdAndBookIsbn(reviewId, isbn);
+    onReviewsDeleted(this.reviewRepository.deleteByIdAndBookIsbn(reviewId, isbn));
   }
 
-  public ObjectNode getReviewById(String isbn, Long reviewId) {
-    return this.reviewRepository.findByIdAndBookIsbn(reviewId, isbn)
-      .map(this::mapReview)
+  /**
+   * Deletes either the given reviews, all reviews of one user or all reviews of one book, with exactly one of
+   * the criteria set, and returns the ids of the deleted reviews.
+   */
+  public List<Long> deleteReviews(List<Long> reviewIds, String userEmail, String isbn) {
+    long criteria = Stream.of(reviewIds, userEmail, isbn).filter(Objects::nonNull).count();
+
+    if (criteria != 1) {
+      throw new InvalidReviewDeletionException("Specify exactly one of ids, userEmail or isbn");
+    }
+
+    if (reviewIds != null && (reviewIds.isEmpty() || reviewIds.size() > MAX_DELETED_IDS)) {
+      throw new InvalidReviewDeletionException("Specify between 1 and " + MAX_DELETED_IDS + " ids");
+    }
+
+    List<DeletedReview> deleted = reviewIds != null
+      ? reviewRepository.deleteAllByIdIn(reviewIds)
+      : userEmail != null
+      ? reviewRepository.deleteAllByUserEmail(userEmail)
+      : reviewRepository.deleteAllByBookIsbn(isbn);
+
+    return onReviewsDeleted(deleted);
+  }
+
+  public ReviewView getReviewById(String isbn, Long reviewId) {
+    return this.reviewRepository.findViewByIdAndBookIsbn(reviewId, isbn)
       .orElseThrow(ReviewNotFoundException::new);
   }
+
+  /**
+   * The delete statements already subtracted the ratings, this only drops statistics rows that reached zero and
+   * notifies the in-memory views.
+   */
+  private List<Long> onReviewsDeleted(List<DeletedReview> deleted) {
+    Set<Long> bookIds = deleted.stream()
+      .map(DeletedReview::getBookId)
+      .filter(Objects::nonNull)
+      .collect(Collectors.toSet());
+
+    if (!bookIds.isEmpty()) {
+      bookReviewStatsRepository.deleteAllIfEmpty(bookIds);
+    }
+
+    List<Long> reviewIds = new ArrayList<>(deleted.size());
+
+    for (DeletedReview review : deleted) {
+      eventPublisher.publishEvent(new ReviewDeletedEvent(review.getReviewId(), review.getBookId(), review.getRating()));
+      reviewIds.add(review.getReviewId());
+    }
+
+    return reviewIds;
+  }
 }
@@ -0,0 +1,22 @@
+package de.rieckpil.courses.book.review;
+
+import java.util.List;
+
+public class ReviewStatisticPage {
+
+  private final List<ReviewStatisticView> statistics;
+  private final long totalCount;
+
+  public ReviewStatisticPage(List<ReviewStatisticView> statistics, long totalCount) {
+    this.statistics = statistics;
+    this.totalCount = totalCount;
+  }
+
+  public List<ReviewStatisticView> getStatistics() {
+    return statistics;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+}
@@ -0,0 +1,37 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+
+@JsonPropertyOrder({"bookId", "isbn", "avg", "ratings"})
+public class ReviewStatisticView {
+
+  private final Long bookId;
+  private final String isbn;
+  private final BigDecimal avg;
+  private final Long ratings;
+
+  public ReviewStatisticView(Long bookId, String isbn, BigDecimal avg, Long ratings) {
+    this.bookId = bookId;
+    this.isbn = isbn;
+    this.avg = avg;
+    this.ratings = ratings;
+  }
+
+  public Long getBookId() {
+    return bookId;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public BigDecimal getAvg() {
+    return avg;
+  }
+
+  public Long getRatings() {
+    return ratings;
+  }
+}
@@ -0,0 +1,426 @@
+package de.rieckpil.courses.book.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory rating count, sum and histogram per book, fed by the committed review writes of this instance and seeded from
+ * {@code book_review_stats} at startup and after a reconciliation repaired drift.
+ * <p>
+ * Writers only touch striped {@link LongAdder}s of the current generation of counters, without any lock or shared
+ * word to update. Readers get an immutable snapshot, which a single background thread rebuilds at most once per
+ * refresh interval and only if anything changed, so serving the statistics neither locks, queries nor sorts. Each
+ * snapshot is indexed by ISBN and pre-sorted by average and by number of ratings, so pages and lookups are plain
+ * list and map accesses. Once a rebuilt snapshot with different content is published, the review content version
+ * is bumped again, so a client that cached the previous statistics under the ETag of the write revalidates them.
+ * <p>
+ * A reseed reads the database totals into a new generation that also receives every write from then on, and only
+ * swaps it in if no review write started committing while the totals were read. Otherwise a write could be lost,
+ * or be counted both in the totals and by its event.
+ */
+@Component
+public class ReviewStatisticsAggregator {
+
+  private static final Comparator<ReviewStatisticView> BY_BOOK_ID =
+    Comparator.comparing(ReviewStatisticView::getBookId);
+
+  private static final Comparator<ReviewStatisticView> HIGHEST_AVG_FIRST =
+    Comparator.comparing(ReviewStatisticView::getAvg).reversed()
+      .thenComparing(Comparator.comparing(ReviewStatisticView::getRatings).reversed())
+      .thenComparing(BY_BOOK_ID);
+
+  private static final Comparator<ReviewStatisticView> MOST_RATINGS_FIRST =
+    Comparator.comparing(ReviewStatisticView::getRatings).reversed()
+      .thenComparing(Comparator.comparing(ReviewStatisticView::getAvg).reversed())
+      .thenComparing(BY_BOOK_ID);
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewStatisticsAggregator.class);
+
+  private static final int MAX_SEED_ATTEMPTS = 50;
+  private static final long SEED_RETRY_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+  private final BookReviewStatsRepository bookReviewStatsRepository;
+  private final ReviewContentVersion reviewContentVersion;
+  private final Duration refreshInterval;
+
+  private final LongAdder writesCommitting = new LongAdder();
+  private final LongAdder writesApplied = new LongAdder();
+  private volatile Generation generation = new Generation();
+  private volatile Generation seeding;
+  private volatile Snapshot snapshot = new Snapshot(generation, -1, List.of(), List.of());
+  private ScheduledExecutorService refresher;
+
+  public ReviewStatisticsAggregator(BookReviewStatsRepository bookReviewStatsRepository,
+                                    ReviewContentVersion reviewContentVersion,
+                                    @Value("${reviews.stats.refresh-interval:100ms}") Duration refreshInterval) {
+    this.bookReviewStatsRepository = bookReviewStatsRepository;
+    this.reviewContentVersion = reviewContentVersion;
+    this.refreshInterval = refreshInterval;
+  }
+
+  @PostConstruct
+  public void start() {
+    refresher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("review-statistics-"));
+    refresher.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (RuntimeException e) {
+        // an escaping exception would cancel all further runs
+        LOG.error("Failed to refresh the review statistics", e);
+      }
+    }, refreshInterval.toNanos(), refreshInterval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void seed() {
+    for (int attempt = 0; attempt < MAX_SEED_ATTEMPTS; attempt++) {
+      if (trySeed()) {
+        refresh();
+        return;
+      }
+
+      LockSupport.parkNanos(SEED_RETRY_PAUSE_NANOS);
+    }
+
+    LOG.warn("Skipped reseeding review statistics, as review writes kept committing concurrently");
+  }
+
+  /**
+   * Tracks the writes whose transaction is committing but whose event has not been applied yet, so a reseed can
+   * tell whether the totals it read are consistent with the counters.
+   */
+  @EventListener({ReviewCreatedEvent.class, ReviewDeletedEvent.class})
+  public void onReviewWritePublished() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+      private boolean committing;
+
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        committing = true;
+        writesCommitting.increment();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (committing) {
+          writesApplied.increment();
+        }
+      }
+
+      @Override
+      public int getOrder() {
+        // after the listeners applying the write
+        return Ordered.LOWEST_PRECEDENCE;
+      }
+    });
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStatisticsRepaired(ReviewStatisticsRepairedEvent event) {
+    seed();
+  }
+
+  @Order(ReviewContentVersion.VIEW_ORDER)
+  @TransactionalEventListener
+  public void onReviewCreated(ReviewCreatedEvent event) {
+    add(event.getBookId(), event.getReview().getBookIsbn(), event.getReview().getRating());
+  }
+
+  @Order(ReviewContentVersion.VIEW_ORDER)
+  @TransactionalEventListener
+  public void onReviewDeleted(ReviewDeletedEvent event) {
+    remove(event.getBookId(), event.getRating());
+  }
+
+  public void add(Long bookId, String isbn, int rating) {
+    Generation current = generation;
+    current.add(bookId, isbn, 1, rating);
+
+    // read after the write, so a reseed either sees the write as committing or this sees its generation
+    Generation next = seeding;
+    if (next != null && next != current) {
+      next.add(bookId, isbn, 1, rating);
+    }
+  }
+
+  public void remove(Long bookId, int rating) {
+    if (bookId == null) {
+      return;
+    }
+
+    Generation current = generation;
+    BookCounters bookCounters = current.counters.get(bookId);
+
+    if (bookCounters != null) {
+      current.add(bookId, bookCounters.isbn, -1, rating);
+    }
+
+    // the seeding generation only holds the writes since its totals were read, so it records unknown books too
+    Generation next = seeding;
+    if (next != null && next != current) {
+      next.add(bookId, bookCounters == null ? null : bookCounters.isbn, -1, rating);
+    }
+  }
+
+  public List<ReviewStatisticView> snapshot() {
+    return snapshot.statistics;
+  }
+
+  /**
+   * @param orderBy {@code avg} or {@code ratings} for the highest first, anything else orders by book id
+   */
+  public List<ReviewStatisticView> snapshot(String orderBy) {
+    Snapshot current = snapshot;
+
+    switch (orderBy) {
+      case "avg":
+        return current.statisticsByAvg;
+      case "ratings":
+        return current.statisticsByRatings;
+      default:
+        return current.statistics;
+    }
+  }
+
+  public Optional<ReviewStatisticView> find(String isbn) {
+    return Optional.ofNullable(snapshot.statisticsByIsbn.get(isbn));
+  }
+
+  public List<RatingDistributionView> distributions() {
+    return snapshot.distributions;
+  }
+
+  /**
+   * Publishes a new snapshot if the counters changed since the current one was built.
+   *
+   * @return whether a new snapshot was published
+   */
+  synchronized boolean refresh() {
+    Generation current = generation;
+    long changes = current.changes.sum();
+    Snapshot published = snapshot;
+
+    if (published.generation == current && published.changes == changes) {
+      return false;
+    }
+
+    Snapshot rebuilt = build(current, changes);
+    snapshot = rebuilt;
+
+    if (!rebuilt.hasSameContentAs(published)) {
+      reviewContentVersion.increment();
+    }
+
+    return true;
+  }
+
+  /**
+   * @return whether the totals were swapped in, which requires that no write started committing while they were read
+   */
+  private boolean trySeed() {
+    long committing = writesCommitting.sum();
+
+    if (writesApplied.sum() != committing) {
+      return false;
+    }
+
+    Generation seeded = new Generation();
+    seeding = seeded;
+
+    try {
+      List<BookRatingTotal> totals = bookReviewStatsRepository.findAllRatingTotals();
+
+      if (writesCommitting.sum() != committing) {
+        return false;
+      }
+
+      // every write committed after the totals were read has been added to the seeded generation already
+      for (BookRatingTotal total : totals) {
+        seeded.add(total.getIsbn(), total.getStats());
+      }
+
+      generation = seeded;
+      return true;
+    } finally {
+      if (generation != seeded) {
+        seeding = null;
+      }
+    }
+  }
+
+  private Snapshot build(Generation source, long changes) {
+    List<ReviewStatisticView> statistics = new ArrayList<>(source.counters.size());
+    List<RatingDistributionView> distributions = new ArrayList<>(source.counters.size());
+
+    source.counters.forEach((bookId, bookCounters) -> {
+      long ratings = bookCounters.ratings.sum();
+
+      if (ratings > 0 && bookCounters.isbn != null) {
+        BigDecimal avg = BigDecimal.valueOf(bookCounters.ratingSum.sum())
+          .divide(BigDecimal.valueOf(ratings), 2, RoundingMode.HALF_UP);
+        statistics.add(new ReviewStatisticView(bookId, bookCounters.isbn, avg, ratings));
+
+        long[] histogram = new long[RatingDistributionView.HISTOGRAM_BUCKETS];
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+          histogram[bucket] = bookCounters.histogram[bucket].sum();
+        }
+        distributions.add(new RatingDistributionView(bookId, bookCounters.isbn, histogram));
+      }
+    });
+
+    statistics.sort(BY_BOOK_ID);
+    distributions.sort(Comparator.comparing(RatingDistributionView::getBookId));
+
+    return new Snapshot(source, changes, List.copyOf(statistics), List.copyOf(distributions));
+  }
+
+  /**
+   * The counters of all books, replaced as a whole by a reseed.
+   */
+  private static class Generation {
+
+    private final Map<Long, BookCounters> counters = new ConcurrentHashMap<>();
+    private final LongAdder changes = new LongAdder();
+
+    /**
+     * @param count 1 to add the rating, -1 to remove it
+     */
+    void add(Long bookId, String isbn, int count, int rating) {
+      BookCounters bookCounters = counters.computeIfAbsent(bookId, id -> new BookCounters());
+      bookCounters.identify(isbn);
+      bookCounters.ratings.add(count);
+      bookCounters.ratingSum.add((long) count * rating);
+      bookCounters.histogram[RatingDistributionView.bucketOf(rating)].add(count);
+      changes.increment();
+    }
+
+    void add(String isbn, BookReviewStats stats) {
+      BookCounters bookCounters = counters.computeIfAbsent(stats.getBookId(), id -> new BookCounters());
+      long[] histogram = stats.getHistogram();
+
+      bookCounters.identify(isbn);
+      bookCounters.ratings.add(stats.getRatings());
+      bookCounters.ratingSum.add(stats.getRatingSum());
+      for (int bucket = 0; bucket < histogram.length; bucket++) {
+        bookCounters.histogram[bucket].add(histogram[bucket]);
+      }
+      changes.increment();
+    }
+  }
+
+  private static class BookCounters {
+
+    private volatile String isbn;
+    private final LongAdder ratings = new LongAdder();
+    private final LongAdder ratingSum = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[RatingDistributionView.HISTOGRAM_BUCKETS];
+
+    BookCounters() {
+      for (int bucket = 0; bucket < histogram.length; bucket++) {
+        histogram[bucket] = new LongAdder();
+      }
+    }
+
+    /**
+     * A seeding generation may learn about a book from a delete, which carries no ISBN, before its totals arrive.
+     */
+    void identify(String isbn) {
+      if (this.isbn == null && isbn != null) {
+        this.isbn = isbn;
+      }
+    }
+  }
+
+  private static class Snapshot {
+
+    private final Generation generation;
+    private final long changes;
+    private final List<ReviewStatisticView> statistics;
+    private final List<ReviewStatisticView> statisticsByAvg;
+    private final List<ReviewStatisticView> statisticsByRatings;
+    private final Map<String, ReviewStatisticView> statisticsByIsbn;
+    private final List<RatingDistributionView> distributions;
+
+    Snapshot(Generation generation, long changes, List<ReviewStatisticView> statistics,
+             List<RatingDistributionView> distributions) {
+      this.generation = generation;
+      this.changes = changes;
+      this.statistics = statistics;
+      this.statisticsByAvg = sorted(statistics, HIGHEST_AVG_FIRST);
+      this.statisticsByRatings = sorted(statistics, MOST_RATINGS_FIRST);
+      this.statisticsByIsbn = statistics.stream()
+        .collect(Collectors.toUnmodifiableMap(ReviewStatisticView::getIsbn, Function.identity(), (a, b) -> a));
+      this.distributions = distributions;
+    }
+
+    boolean hasSameContentAs(Snapshot other) {
+      if (statistics.size() != other.statistics.size()) {
+        return false;
+      }
+
+      for (int i = 0; i < statistics.size(); i++) {
+        ReviewStatisticView statistic = statistics.get(i);
+        ReviewStatisticView otherStatistic = other.statistics.get(i);
+
+        if (!statistic.getBookId().equals(otherStatistic.getBookId())
+          || !statistic.getIsbn().equals(otherStatistic.getIsbn())
+          || !statistic.getRatings().equals(otherStatistic.getRatings())
+          || statistic.getAvg().compareTo(otherStatistic.getAvg()) != 0
+          || !Arrays.equals(distributions.get(i).getHistogram(), other.distributions.get(i).getHistogram())) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private static List<ReviewStatisticView> sorted(List<ReviewStatisticView> statistics,
+                                                    Comparator<ReviewStatisticView> order) {
+      List<ReviewStatisticView> result = new ArrayList<>(statistics);
+      result.sort(order);
+      return List.copyOf(result);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package de.rieckpil.courses.book.review;
+
+public class ReviewStatisticsRepairedEvent {
+
+  private final int repairedRows;
+
+  public ReviewStatisticsRepairedEvent(int repairedRows) {
+    this.repairedRows = repairedRows;
+  }
+
+  public int getRepairedRows() {
+    return repairedRows;
+  }
+}
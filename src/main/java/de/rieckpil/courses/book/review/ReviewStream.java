@@ -0,0 +1,64 @@
+package de.rieckpil.courses.book.review;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * Pushes every committed review creation of this instance to all subscribers of a single multicast sink.
+ * <p>
+ * Each subscriber gets its own bounded buffer. A subscriber that can't keep up drops its oldest pending
+ * reviews instead of slowing down the other subscribers or the review creation.
+ */
+@Component
+public class ReviewStream {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewStream.class.getName());
+
+  private static final Duration EMIT_RETRY = Duration.ofMillis(100);
+
+  private final Sinks.Many<ReviewView> createdReviews = Sinks.many().multicast().directBestEffort();
+  private final int subscriberBufferSize;
+  private final Duration heartbeatInterval;
+
+  public ReviewStream(@Value("${reviews.stream.subscriber-buffer-size:256}") int subscriberBufferSize,
+                      @Value("${reviews.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+    this.subscriberBufferSize = subscriberBufferSize;
+    this.heartbeatInterval = heartbeatInterval;
+  }
+
+  public Flux<ReviewView> createdReviews() {
+    return createdReviews.asFlux()
+      .onBackpressureBuffer(subscriberBufferSize,
+        dropped -> LOG.debug("Dropping review '{}' for lagging subscriber", dropped.getReviewId()),
+        BufferOverflowStrategy.DROP_OLDEST);
+  }
+
+  public Flux<ServerSentEvent<ReviewView>> createdReviewEvents() {
+    Flux<ServerSentEvent<ReviewView>> reviews = createdReviews()
+      .map(review -> ServerSentEvent.builder(review)
+        .id(String.valueOf(review.getReviewId()))
+        .event("review-created")
+        .build());
+
+    Flux<ServerSentEvent<ReviewView>> heartbeats = Flux.interval(heartbeatInterval)
+      .map(tick -> ServerSentEvent.<ReviewView>builder().comment("heartbeat").build());
+
+    return Flux.merge(reviews, heartbeats);
+  }
+
+  @Order(ReviewContentVersion.VIEW_ORDER)
+  @TransactionalEventListener
+  public void onReviewCreated(ReviewCreatedEvent event) {
+    createdReviews.emitNext(event.getReview(), Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY));
+  }
+}
@@ -1,37 +1,180 @@
 package de.rieckpil.courses.book.review;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Applies the {@link ReviewRule}s in order and rejects a review as soon as one rule does. Expensive rules run
+ * afterwards in parallel on a bounded executor. A rule that misses the deadline, or can't be scheduled because
+ * the executor is saturated, doesn't hold up the review: it counts as accepted and is counted in
+ * {@code reviews.verification.timeouts}. The whole verification is timed once as {@code reviews.verification},
+ * tagged with its outcome and the rejecting rule, so the per-review overhead doesn't grow with the rules.
+ */
 @Service
 public class ReviewVerifier {
 
-  private boolean doesNotContainSwearWords(String review) {
-    return !review.contains("shit");
+  private static final Logger LOG = LoggerFactory.getLogger(ReviewVerifier.class);
+
+  private static final String NO_RULE = "none";
+
+  private final List<ReviewRule> cheapRules;
+  private final List<ReviewRule> expensiveRules;
+  private final Map<ReviewRule, Timer> rejectedBy = new IdentityHashMap<>();
+  private final Map<ReviewRule, Counter> timeouts = new IdentityHashMap<>();
+  private final Timer accepted;
+  private final Duration deadline;
+  private final ExecutorService executor;
+
+  public ReviewVerifier(List<ReviewRule> rules,
+                        MeterRegistry meterRegistry,
+                        @Value("${reviews.verification.deadline:500ms}") Duration deadline,
+                        @Value("${reviews.verification.parallelism:4}") int parallelism,
+                        @Value("${reviews.verification.queue-capacity:100}") int queueCapacity) {
+    List<ReviewRule> ordered = new ArrayList<>(rules);
+    AnnotationAwareOrderComparator.sort(ordered);
+
+    this.cheapRules = ordered.stream()
+      .filter(rule -> !rule.isExpensive())
+      .collect(Collectors.toList());
+    this.expensiveRules = ordered.stream()
+      .filter(ReviewRule::isExpensive)
+      .collect(Collectors.toList());
+    this.accepted = timer(meterRegistry, NO_RULE, "accepted");
+    this.deadline = deadline;
+    this.executor = expensiveRules.isEmpty()
+      ? null
+      : new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), daemonThreads());
+
+    for (ReviewRule rule : ordered) {
+      rejectedBy.put(rule, timer(meterRegistry, rule.getName(), "rejected"));
+    }
+
+    for (ReviewRule rule : expensiveRules) {
+      timeouts.put(rule, Counter.builder("reviews.verification.timeouts")
+        .description("Expensive review rules that missed the deadline or could not be scheduled")
+        .tag("rule", rule.getName())
+        .register(meterRegistry));
+    }
   }
 
   public boolean doesMeetQualityStandards(String review) {
+    long start = System.nanoTime();
+    ReviewRule rejecting = firstRejecting(review);
+    Timer timer = rejecting == null ? accepted : rejectedBy.get(rejecting);
+    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-    if (review.contains("Lorem ipsum")) {
-      return false;
-    }
+    return rejecting == null;
+  }
 
-    String[] words = review.split(" ");
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
 
-    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("I")).count() >= 5) {
-      return false;
+  private ReviewRule firstRejecting(String review) {
+    for (ReviewRule rule : cheapRules) {
+      if (!rule.accepts(review)) {
+        return rule;
+      }
     }
 
-    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("good")).count() >= 3) {
-      return false;
+    return expensiveRules.isEmpty() ? null : firstRejectingExpensive(review);
+  }
+
+  private ReviewRule firstRejectingExpensive(String review) {
+    long deadlineNanos = System.nanoTime() + deadline.toNanos();
+    CompletionService<ReviewRule> completionService = new ExecutorCompletionService<>(executor);
+    List<ReviewRule> submittedRules = new ArrayList<>();
+    List<Future<ReviewRule>> futures = new ArrayList<>();
+
+    try {
+      for (ReviewRule rule : expensiveRules) {
+        try {
+          futures.add(completionService.submit(() -> rule.accepts(review) ? null : rule));
+          submittedRules.add(rule);
+        } catch (RejectedExecutionException e) {
+          LOG.warn("Skipping review rule '{}', the verification executor is saturated", rule.getName());
+          timeouts.get(rule).increment();
+        }
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        Future<ReviewRule> completed = completionService.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+        if (completed == null) {
+          recordTimeouts(submittedRules, futures);
+          return null;
+        }
+
+        ReviewRule rejecting = completed.get();
+
+        if (rejecting != null) {
+          return rejecting;
+        }
+      }
+
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
     }
+  }
 
-    if (words.length <= 10) {
-      return false;
+  private void recordTimeouts(List<ReviewRule> rules, List<Future<ReviewRule>> futures) {
+    for (int i = 0; i < futures.size(); i++) {
+      if (!futures.get(i).isDone()) {
+        LOG.warn("Review rule '{}' did not finish within {}", rules.get(i).getName(), deadline);
+        timeouts.get(rules.get(i)).increment();
+      }
     }
+  }
 
-    return doesNotContainSwearWords(review);
+  private static Timer timer(MeterRegistry meterRegistry, String rule, String outcome) {
+    return Timer.builder("reviews.verification")
+      .description("Time spent verifying a review, by outcome and rejecting rule")
+      .tag("rule", rule)
+      .tag("outcome", outcome)
+      .register(meterRegistry);
   }
 
+  private static ThreadFactory daemonThreads() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("review-verification-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
 }
@@ -0,0 +1,96 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import de.rieckpil.courses.book.management.BookSummary;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@JsonPropertyOrder({"reviewId", "reviewContent", "reviewTitle", "rating", "bookIsbn", "bookTitle",
+  "bookThumbnailUrl", "submittedBy", "submittedAt"})
+public class ReviewView {
+
+  private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+  private final Long reviewId;
+  private final String reviewContent;
+  private final String reviewTitle;
+  private final Integer rating;
+  private final String bookIsbn;
+  private final String bookTitle;
+  private final String bookThumbnailUrl;
+  private final String submittedBy;
+  private final LocalDateTime createdAt;
+
+  public ReviewView(Long reviewId, String reviewContent, String reviewTitle, Integer rating, String bookIsbn,
+                    String bookTitle, String bookThumbnailUrl, String submittedBy, LocalDateTime createdAt) {
+    this.reviewId = reviewId;
+    this.reviewContent = reviewContent;
+    this.reviewTitle = reviewTitle;
+    this.rating = rating;
+    this.bookIsbn = bookIsbn;
+    this.bookTitle = bookTitle;
+    this.bookThumbnailUrl = bookThumbnailUrl;
+    this.submittedBy = submittedBy;
+    this.createdAt = createdAt;
+  }
+
+  public static ReviewView from(Review review) {
+    return new ReviewView(review.getId(), review.getContent(), review.getTitle(), review.getRating(),
+      review.getBook().getIsbn(), review.getBook().getTitle(), review.getBook().getThumbnailUrl(),
+      review.getUser().getName(), review.getCreatedAt());
+  }
+
+  public static ReviewView from(Review review, BookSummary book) {
+    return new ReviewView(review.getId(), review.getContent(), review.getTitle(), review.getRating(),
+      book.getIsbn(), book.getTitle(), book.getThumbnailUrl(), review.getUser().getName(), review.getCreatedAt());
+  }
+
+  public static ReviewView from(ReviewSearchResult searchResult) {
+    return new ReviewView(searchResult.getReviewId(), searchResult.getReviewContent(), searchResult.getReviewTitle(),
+      searchResult.getRating(), searchResult.getBookIsbn(), searchResult.getBookTitle(),
+      searchResult.getBookThumbnailUrl(), searchResult.getSubmittedBy(), searchResult.getCreatedAt());
+  }
+
+  public Long getReviewId() {
+    return reviewId;
+  }
+
+  public String getReviewContent() {
+    return reviewContent;
+  }
+
+  public String getReviewTitle() {
+    return reviewTitle;
+  }
+
+  public Integer getRating() {
+    return rating;
+  }
+
+  public String getBookIsbn() {
+    return bookIsbn;
+  }
+
+  public String getBookTitle() {
+    return bookTitle;
+  }
+
+  public String getBookThumbnailUrl() {
+    return bookThumbnailUrl;
+  }
+
+  public String getSubmittedBy() {
+    return submittedBy;
+  }
+
+  public long getSubmittedAt() {
+    return createdAt.atZone(ZONE).toInstant().toEpochMilli();
+  }
+
+  @JsonIgnore
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+}
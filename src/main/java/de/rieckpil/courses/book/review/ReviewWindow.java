@@ -0,0 +1,128 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded, sorted window of the first reviews according to a fixed order.
+ * <p>
+ * Readers get an immutable snapshot without locking, writers swap in a new snapshot with a compare-and-set loop.
+ * The window is seeded from the database and then kept up to date by the committed review writes of this
+ * instance. Deleting a review only shrinks the window, as the remaining entries are still the first ones; reads
+ * the window can no longer cover fall back to the database and reseed it.
+ * <p>
+ * The class is public so that Spring detects its event listeners. On a package-private class, the subclasses
+ * only expose them as compiler-generated bridge methods, which are never registered.
+ */
+public abstract class ReviewWindow {
+
+  private final Comparator<ReviewView> order;
+  private final int capacity;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.uninitialized());
+
+  protected ReviewWindow(Comparator<ReviewView> order, int capacity) {
+    this.order = order;
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the first {@code size} reviews from memory if possible. Otherwise, {@code loader} is asked for the
+   * first reviews and its result seeds the window, unless a review was written in the meantime.
+   */
+  public List<ReviewView> read(int size, IntFunction<List<ReviewView>> loader) {
+    Snapshot current = snapshot.get();
+
+    if (current.initialized && (size <= current.entries.length || current.exhaustive)) {
+      return List.of(Arrays.copyOf(current.entries, Math.min(size, current.entries.length)));
+    }
+
+    if (size > capacity) {
+      return loader.apply(size);
+    }
+
+    List<ReviewView> loaded = loader.apply(capacity);
+    snapshot.compareAndSet(current, new Snapshot(loaded.toArray(ReviewView[]::new), loaded.size() < capacity, true));
+
+    return loaded.subList(0, Math.min(size, loaded.size()));
+  }
+
+  @Order(ReviewContentVersion.VIEW_ORDER)
+  @TransactionalEventListener
+  public void onReviewCreated(ReviewCreatedEvent event) {
+    ReviewView review = event.getReview();
+    Snapshot current;
+    Snapshot updated;
+
+    do {
+      current = snapshot.get();
+      updated = current.invalidated();
+
+      if (current.initialized) {
+        int position = Arrays.binarySearch(current.entries, review, order);
+        int insertAt = position >= 0 ? position : -(position + 1);
+        int limit = current.exhaustive ? capacity : current.entries.length;
+
+        if (position < 0 && insertAt < limit) {
+          int length = Math.min(current.entries.length + 1, capacity);
+          ReviewView[] entries = new ReviewView[length];
+          System.arraycopy(current.entries, 0, entries, 0, insertAt);
+          entries[insertAt] = review;
+          System.arraycopy(current.entries, insertAt, entries, insertAt + 1, length - insertAt - 1);
+
+          updated = new Snapshot(entries, current.exhaustive && current.entries.length < capacity, true);
+        }
+      }
+    } while (!snapshot.compareAndSet(current, updated));
+  }
+
+  @Order(ReviewContentVersion.VIEW_ORDER)
+  @TransactionalEventListener
+  public void onReviewDeleted(ReviewDeletedEvent event) {
+    Snapshot current;
+    Snapshot updated;
+
+    do {
+      current = snapshot.get();
+      ReviewView[] entries = Arrays.stream(current.entries)
+        .filter(review -> !review.getReviewId().equals(event.getReviewId()))
+        .toArray(ReviewView[]::new);
+
+      updated = new Snapshot(entries, current.exhaustive, current.initialized);
+    } while (!snapshot.compareAndSet(current, updated));
+  }
+
+  /**
+   * Every write installs a new instance, even if the entries don't change, so that a concurrent seed based on a
+   * database read from before the write is discarded.
+   */
+  private static final class Snapshot {
+
+    private final ReviewView[] entries;
+    private final boolean exhaustive;
+    private final boolean initialized;
+
+    private Snapshot(ReviewView[] entries, boolean exhaustive, boolean initialized) {
+      this.entries = entries;
+      this.exhaustive = exhaustive;
+      this.initialized = initialized;
+    }
+
+    static Snapshot uninitialized() {
+      return new Snapshot(new ReviewView[0], false, false);
+    }
+
+    Snapshot invalidated() {
+      return new Snapshot(entries, exhaustive, initialized);
+    }
+  }
+}
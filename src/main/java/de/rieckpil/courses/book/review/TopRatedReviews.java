@@ -0,0 +1,24 @@
+package de.rieckpil.courses.book.review;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * The highest rated reviews, ordered like {@link ReviewRepository#findTopRatedViews}. The capacity is also the
+ * largest page the rating order hands out.
+ */
+@Component
+public class TopRatedReviews extends ReviewWindow {
+
+  static final Comparator<ReviewView> HIGHEST_RATED_FIRST = Comparator
+    .comparing(ReviewView::getRating)
+    .thenComparing(ReviewView::getCreatedAt)
+    .thenComparing(ReviewView::getReviewId)
+    .reversed();
+
+  public TopRatedReviews(@Value("${reviews.top-rated.max-size:100}") int maxSize) {
+    super(HIGHEST_RATED_FIRST, maxSize);
+  }
+}
@@ -1,9 +1,15 @@
 package de.rieckpil.courses.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -11,6 +17,22 @@ public class WebConfig implements WebMvcConfigurer {
   public void addCorsMappings(CorsRegistry registry) {
     registry.addMapping("/**")
       .allowedOrigins("http://localhost:3000")
-      .allowedMethods("HEAD", "GET", "PUT", "POST", "DELETE", "PATCH");
+      .allowedMethods("HEAD", "GET", "PUT", "POST", "DELETE", "PATCH")
+      .exposedHeaders("X-Next-Cursor", "X-Total-Count", "ETag", "Location", "Preference-Applied");
+  }
+
+  /**
+   * The API negotiates JSON, Smile and CBOR under one ETag, so shared caches have to key the responses, including
+   * the 304 ones, by the {@code Accept} header as well.
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new HandlerInterceptor() {
+      @Override
+      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return true;
+      }
+    }).addPathPatterns("/api/**");
   }
 }
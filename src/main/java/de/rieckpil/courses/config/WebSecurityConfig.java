@@ -19,6 +19,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
       .authorizeRequests(authorize -> authorize
         .mvcMatchers(HttpMethod.GET, "/api/books").permitAll()
         .mvcMatchers(HttpMethod.GET, "/api/books/reviews").permitAll()
+        .mvcMatchers(HttpMethod.GET, "/api/books/reviews/stream").permitAll()
+        .mvcMatchers(HttpMethod.GET, "/api/books/reviews/search").permitAll()
+        .mvcMatchers(HttpMethod.GET, "/api/books/{isbn}/reviews").permitAll()
         .mvcMatchers("/api/**").authenticated()
         .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
       )
@@ -0,0 +1 @@
+CREATE INDEX reviews_created_at_id_idx ON reviews (created_at DESC, id DESC);
@@ -0,0 +1 @@
+CREATE INDEX reviews_book_id_created_at_id_idx ON reviews (book_id, created_at DESC, id DESC);
@@ -0,0 +1,6 @@
+ALTER TABLE reviews
+  ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', title), 'A') || setweight(to_tsvector('english', content), 'B')
+  ) STORED;
+
+CREATE INDEX reviews_search_vector_idx ON reviews USING GIN (search_vector);
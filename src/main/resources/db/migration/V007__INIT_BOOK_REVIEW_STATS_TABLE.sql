@@ -0,0 +1,8 @@
+CREATE TABLE book_review_stats (
+  book_id BIGINT PRIMARY KEY REFERENCES books ON DELETE CASCADE,
+  ratings BIGINT NOT NULL,
+  rating_sum BIGINT NOT NULL
+);
+
+INSERT INTO book_review_stats (book_id, ratings, rating_sum)
+SELECT book_id, COUNT(*), SUM(rating) FROM reviews WHERE book_id IS NOT NULL GROUP BY book_id;
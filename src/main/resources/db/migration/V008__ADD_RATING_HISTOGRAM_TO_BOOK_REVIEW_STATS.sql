@@ -0,0 +1,28 @@
+ALTER TABLE book_review_stats
+  ADD COLUMN rating_0_count BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN rating_1_count BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN rating_2_count BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN rating_3_count BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN rating_4_count BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN rating_5_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE book_review_stats s
+SET rating_0_count = histogram.rating_0_count,
+    rating_1_count = histogram.rating_1_count,
+    rating_2_count = histogram.rating_2_count,
+    rating_3_count = histogram.rating_3_count,
+    rating_4_count = histogram.rating_4_count,
+    rating_5_count = histogram.rating_5_count
+FROM (
+  SELECT book_id,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 0) AS rating_0_count,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 1) AS rating_1_count,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 2) AS rating_2_count,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 3) AS rating_3_count,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 4) AS rating_4_count,
+         COUNT(*) FILTER (WHERE LEAST(rating, 5) = 5) AS rating_5_count
+  FROM reviews
+  WHERE book_id IS NOT NULL
+  GROUP BY book_id
+) AS histogram
+WHERE histogram.book_id = s.book_id;
@@ -0,0 +1,14 @@
+CREATE SEQUENCE books_seq INCREMENT BY 50 OWNED BY books.id;
+SELECT setval('books_seq', COALESCE((SELECT MAX(id) FROM books), 0) + 1, false);
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE books ALTER COLUMN id SET DEFAULT nextval('books_seq');
+
+CREATE SEQUENCE users_seq INCREMENT BY 50 OWNED BY users.id;
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+CREATE SEQUENCE reviews_seq INCREMENT BY 50 OWNED BY reviews.id;
+SELECT setval('reviews_seq', COALESCE((SELECT MAX(id) FROM reviews), 0) + 1, false);
+ALTER TABLE reviews ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE reviews ALTER COLUMN id SET DEFAULT nextval('reviews_seq');
@@ -0,0 +1,10 @@
+CREATE TABLE review_idempotency_keys (
+  user_email VARCHAR(255) NOT NULL,
+  idempotency_key VARCHAR(255) NOT NULL,
+  isbn VARCHAR(255) NOT NULL,
+  review_id BIGINT REFERENCES reviews (id) ON DELETE CASCADE,
+  created_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (user_email, idempotency_key)
+);
+
+CREATE INDEX review_idempotency_keys_created_at_idx ON review_idempotency_keys (created_at);
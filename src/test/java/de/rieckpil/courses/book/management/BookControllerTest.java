@@ -12,6 +12,8 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -46,6 +48,18 @@ class BookControllerTest {
       .andExpect(status().isNotAcceptable());
   }
 
+  @Test
+  void shouldReturnNotModifiedWithoutLoadingBooksWhenETagMatches() throws Exception {
+    when(bookManagementService.getBooksETag()).thenReturn("W/\"abc-1\"");
+
+    this.mockMvc
+      .perform(get("/api/books")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-1\""))
+      .andExpect(status().isNotModified());
+
+    verify(bookManagementService, never()).getAllBooks();
+  }
+
   @Test
   void shouldGetBooksWhenServiceReturnsBooks() throws Exception {
 
@@ -0,0 +1,73 @@
+package de.rieckpil.courses.book.management;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSummaryCacheTest {
+
+  private static final String ISBN = "1234567891234";
+
+  @Mock
+  private BookRepository bookRepository;
+
+  @Test
+  void shouldOnlyQueryOncePerKnownIsbn() {
+    BookSummaryCache cut = new BookSummaryCache(bookRepository, 10, Duration.ofMinutes(1));
+
+    when(bookRepository.findSummaryByIsbn(ISBN)).thenReturn(new BookSummary(1L, ISBN, "Java 14", null));
+
+    assertEquals(1L, cut.find(ISBN).orElseThrow().getId());
+    assertEquals(1L, cut.find(ISBN).orElseThrow().getId());
+
+    verify(bookRepository, times(1)).findSummaryByIsbn(ISBN);
+  }
+
+  @Test
+  void shouldRememberUnknownIsbnUntilBookIsStored() {
+    BookSummaryCache cut = new BookSummaryCache(bookRepository, 10, Duration.ofMinutes(1));
+
+    assertTrue(cut.find(ISBN).isEmpty());
+    assertTrue(cut.find(ISBN).isEmpty());
+
+    Book book = new Book();
+    book.setId(1L);
+    book.setIsbn(ISBN);
+    cut.put(book);
+
+    assertEquals(1L, cut.find(ISBN).orElseThrow().getId());
+    verify(bookRepository, times(1)).findSummaryByIsbn(ISBN);
+  }
+
+  @Test
+  void shouldQueryUnknownIsbnAgainAfterNegativeTtl() {
+    BookSummaryCache cut = new BookSummaryCache(bookRepository, 10, Duration.ZERO);
+
+    cut.find(ISBN);
+    cut.find(ISBN);
+
+    verify(bookRepository, times(2)).findSummaryByIsbn(ISBN);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedIsbnWhenFull() {
+    BookSummaryCache cut = new BookSummaryCache(bookRepository, 1, Duration.ofMinutes(1));
+
+    when(bookRepository.findSummaryByIsbn(anyString()))
+      .thenAnswer(invocation -> new BookSummary(1L, invocation.getArgument(0), "Java 14", null));
+
+    cut.find(ISBN);
+    cut.find("42");
+    cut.find(ISBN);
+
+    verify(bookRepository, times(2)).findSummaryByIsbn(ISBN);
+  }
+}
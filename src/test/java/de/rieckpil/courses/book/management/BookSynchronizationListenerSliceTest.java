@@ -95,6 +95,9 @@ class BookSynchronizationListenerSliceTest {
   @MockBean
   private OpenLibraryApiClient openLibraryApiClient;
 
+  @MockBean
+  private BookSummaryCache bookSummaryCache;
+
   @Test
   void shouldStartSQS() {
     assertNotNull(cut);
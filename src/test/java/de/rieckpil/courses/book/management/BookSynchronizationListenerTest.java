@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -19,6 +20,12 @@ class BookSynchronizationListenerTest {
   @Mock
   private OpenLibraryApiClient openLibraryApiClient;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private BookSummaryCache bookSummaryCache;
+
   @InjectMocks
   private BookSynchronizationListener cut;
 
@@ -41,7 +48,7 @@ class BookSynchronizationListenerTest {
 
     cut.consumeBookUpdates(bookSynchronization);
 
-    verifyNoInteractions(openLibraryApiClient);
+    verifyNoInteractions(openLibraryApiClient, eventPublisher);
     verify(bookRepository, times(0)).save(ArgumentMatchers.any());
   }
 
@@ -78,6 +85,9 @@ class BookSynchronizationListenerTest {
     Book methodArgument = bookArgumentCaptor.getValue();
     assertEquals("Java book", methodArgument.getTitle());
     assertEquals(VALID_ISBN, methodArgument.getIsbn());
+
+    verify(bookSummaryCache).put(methodArgument);
+    verify(eventPublisher).publishEvent(ArgumentMatchers.any(BookCreatedEvent.class));
   }
 
 }
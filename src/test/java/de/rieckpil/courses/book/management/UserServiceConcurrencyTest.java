@@ -0,0 +1,106 @@
+package de.rieckpil.courses.book.management;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserServiceConcurrencyTest {
+
+  private static final int THREADS = 16;
+
+  @Container
+  static PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:12.3")
+    .withDatabaseName("test")
+    .withUsername("duke")
+    .withPassword("s3cret");
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", container::getJdbcUrl);
+    registry.add("spring.datasource.password", container::getPassword);
+    registry.add("spring.datasource.username", container::getUsername);
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @AfterEach
+  void cleanUp() {
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void shouldResolveConcurrentFirstRequestsOfSameUserToOneRow() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Long>> results = new ArrayList<>();
+
+    for (int i = 0; i < THREADS; i++) {
+      // a service per thread, so no request is answered from another one's cache entry
+      UserService userService = new UserService(userRepository, 10);
+
+      results.add(executor.submit(() -> {
+        start.await();
+        return transactionTemplate.execute(status -> userService.getOrCreateUser("duke", "duke@spring.io").getId());
+      }));
+    }
+
+    start.countDown();
+
+    Set<Long> ids = new HashSet<>();
+    for (Future<Long> result : results) {
+      ids.add(result.get(30, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+
+    assertEquals(1, ids.size());
+    assertEquals(1, userRepository.count());
+  }
+
+  @Test
+  void shouldOnlyQueryOnceForRepeatedRequestsOfSameUser() {
+    UserService userService = new UserService(userRepository, 10);
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    Set<Long> ids = IntStream.range(0, 100)
+      .mapToObj(i -> transactionTemplate.execute(status -> userService.getOrCreateUser("duke", "duke@spring.io").getId()))
+      .collect(Collectors.toSet());
+
+    assertEquals(1, ids.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+}
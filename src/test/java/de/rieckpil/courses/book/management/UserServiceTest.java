@@ -1,18 +1,20 @@
 package de.rieckpil.courses.book.management;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -20,36 +22,73 @@ class UserServiceTest {
   @Mock
   private UserRepository userRepository;
 
-  @InjectMocks
   private UserService cut;
 
+  @BeforeEach
+  void setup() {
+    cut = new UserService(userRepository, 10);
+  }
+
   @Test
   void shouldIncludeCurrentDateTimeWhenCreatingNewUser() {
 
-    when(userRepository.findByNameAndEmail("duke", "duke@spring.io")).thenReturn(null);
-    when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
-      User user = invocation.getArgument(0);
-      user.setId(1L);
-      return user;
-    });
-
     LocalDateTime defaultLocalDateTime = LocalDateTime.of(2020, 1, 1, 12, 0);
 
-    System.out.println(LocalDateTime.now());
+    when(userRepository.upsert("duke", "duke@spring.io", defaultLocalDateTime)).thenReturn(1L);
 
     try (MockedStatic<LocalDateTime> mockedLocalDateTime = Mockito.mockStatic(LocalDateTime.class)) {
       mockedLocalDateTime.when(LocalDateTime::now).thenReturn(defaultLocalDateTime);
 
-      System.out.println(LocalDateTime.now());
-
       User result = cut.getOrCreateUser("duke", "duke@spring.io");
 
-      System.out.println(LocalDateTime.now());
-      System.out.println(LocalDateTime.now());
+      assertEquals(1L, result.getId());
+      assertEquals("duke", result.getName());
+    }
+  }
+
+  @Test
+  void shouldOnlyUpsertOncePerIdentity() {
+    when(userRepository.upsert(eq("duke"), eq("duke@spring.io"), any())).thenReturn(1L);
+
+    cut.getOrCreateUser("duke", "duke@spring.io");
+    User result = cut.getOrCreateUser("duke", "duke@spring.io");
 
-      assertEquals(defaultLocalDateTime, result.getCreatedAt());
+    assertEquals(1L, result.getId());
+    verify(userRepository, times(1)).upsert(eq("duke"), eq("duke@spring.io"), any());
+  }
+
+  @Test
+  void shouldNotCacheIdOfRolledBackInsert() {
+    when(userRepository.upsert(eq("duke"), eq("duke@spring.io"), any())).thenReturn(1L, 2L);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cut.getOrCreateUser("duke", "duke@spring.io");
+      TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    User result = cut.getOrCreateUser("duke", "duke@spring.io");
+
+    assertEquals(2L, result.getId());
+    verify(userRepository, times(2)).upsert(eq("duke"), eq("duke@spring.io"), any());
+  }
+
+  @Test
+  void shouldCacheIdOnceTransactionCommits() {
+    when(userRepository.upsert(eq("duke"), eq("duke@spring.io"), any())).thenReturn(1L);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cut.getOrCreateUser("duke", "duke@spring.io");
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
     }
 
-    System.out.println(LocalDateTime.now());
+    assertEquals(1L, cut.getOrCreateUser("duke", "duke@spring.io").getId());
+    verify(userRepository, times(1)).upsert(eq("duke"), eq("duke@spring.io"), any());
   }
 }
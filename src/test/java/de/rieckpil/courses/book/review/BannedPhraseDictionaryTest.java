@@ -0,0 +1,113 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BannedPhraseDictionaryTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldLoadDefaultDictionaryFromClasspath() {
+    BannedPhrases result = ReviewVerifiers.defaultDictionary().current();
+
+    assertEquals(2, result.size());
+    assertTrue(result.containsAny("Lorem ipsum dolor"));
+  }
+
+  @Test
+  void shouldSwapPhrasesWhenFileChanges() throws IOException {
+    Path file = directory.resolve("phrases.txt");
+    write(file, "# comment\nboring\n\n", Instant.parse("2022-01-01T00:00:00Z"));
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file), Duration.ofSeconds(10));
+    BannedPhrases initial = cut.current();
+
+    assertTrue(initial.containsAny("a boring book"));
+    assertFalse(cut.reloadIfModified());
+
+    write(file, "boring\nwaste of time\n", Instant.parse("2022-01-02T00:00:00Z"));
+
+    assertTrue(cut.reloadIfModified());
+    assertTrue(cut.current().containsAny("a waste of time"));
+    assertFalse(initial.containsAny("a waste of time"));
+  }
+
+  @Test
+  void shouldKeepPreviousPhrasesWhenFileCanNotBeRead() throws IOException {
+    Path file = directory.resolve("phrases.txt");
+    write(file, "boring\n", Instant.parse("2022-01-01T00:00:00Z"));
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file), Duration.ofSeconds(10));
+    BannedPhrases initial = cut.current();
+
+    Files.delete(file);
+
+    assertFalse(cut.reloadIfModified());
+    assertSame(initial, cut.current());
+  }
+
+  @Test
+  void shouldKeepPreviousPhrasesWhenFileHasNoPhrases() throws IOException {
+    Path file = directory.resolve("phrases.txt");
+    write(file, "boring\n", Instant.parse("2022-01-01T00:00:00Z"));
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file), Duration.ofSeconds(10));
+    BannedPhrases initial = cut.current();
+
+    write(file, "# comment\n\n", Instant.parse("2022-01-02T00:00:00Z"));
+
+    assertFalse(cut.reloadIfModified());
+    assertSame(initial, cut.current());
+  }
+
+  @Test
+  void shouldDisableCheckWhenFileIsIntentionallyEmpty() throws IOException {
+    Path file = directory.resolve("phrases.txt");
+    write(file, "boring\n", Instant.parse("2022-01-01T00:00:00Z"));
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file), Duration.ofSeconds(10));
+
+    write(file, "# comment\n" + BannedPhraseDictionary.EMPTY_MARKER + "\n", Instant.parse("2022-01-02T00:00:00Z"));
+
+    assertTrue(cut.reloadIfModified());
+    assertEquals(0, cut.current().size());
+    assertFalse(cut.current().containsAny("a boring book"));
+  }
+
+  @Test
+  void shouldReloadInBackgroundOnceStarted() throws IOException {
+    Path file = directory.resolve("phrases.txt");
+    write(file, "boring\n", Instant.parse("2022-01-01T00:00:00Z"));
+
+    BannedPhraseDictionary cut = new BannedPhraseDictionary(new FileSystemResource(file), Duration.ofMillis(50));
+    cut.start();
+    try {
+      write(file, "waste of time\n", Instant.parse("2022-01-02T00:00:00Z"));
+
+      await().atMost(Duration.ofSeconds(5)).until(() -> cut.current().containsAny("a waste of time"));
+    } finally {
+      cut.stop();
+    }
+  }
+
+  private void write(Path file, String content, Instant modified) throws IOException {
+    Files.writeString(file, content);
+    Files.setLastModifiedTime(file, FileTime.from(modified));
+  }
+}
@@ -0,0 +1,77 @@
+package de.rieckpil.courses.book.review;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast {@link BannedPhrases} scans review text compared to one {@code contains} call per phrase. Each
+ * invocation scans {@link #TEXT_LENGTH} ASCII characters without a match and counts them as operations, so the
+ * reported ops/us equal MB/s. Run the {@link #main(String[])} method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BannedPhrasesBenchmark {
+
+  private static final int TEXT_LENGTH = 1 << 20;
+  private static final String[] WORDS = {"this", "book", "explains", "testing", "Spring", "Boot", "applications",
+    "in", "a", "very", "practical", "way", "with", "many", "examples"};
+
+  @Param({"2", "1000", "5000"})
+  private int phraseCount;
+
+  private String text;
+  private List<String> phrases;
+  private BannedPhrases bannedPhrases;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+
+    StringBuilder builder = new StringBuilder(TEXT_LENGTH);
+    while (builder.length() < TEXT_LENGTH) {
+      builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+    }
+    text = builder.substring(0, TEXT_LENGTH);
+
+    // made of the same words, but the trailing marker never occurs in the text
+    phrases = new ArrayList<>();
+    for (int i = 0; i < phraseCount; i++) {
+      phrases.add(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " #" + i);
+    }
+    bannedPhrases = BannedPhrases.of(phrases);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TEXT_LENGTH)
+  public boolean automaton() {
+    return bannedPhrases.containsAny(text);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TEXT_LENGTH)
+  public boolean containsPerPhrase() {
+    for (String phrase : phrases) {
+      if (text.contains(phrase)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(BannedPhrasesBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,47 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BannedPhrasesTest {
+
+  @Test
+  void shouldFindOverlappingPhrases() {
+    BannedPhrases cut = BannedPhrases.of(List.of("he", "she", "his", "hers"));
+
+    assertTrue(cut.containsAny("ushers"));
+    assertTrue(cut.containsAny("this"));
+    assertFalse(cut.containsAny("hi s"));
+    assertEquals(4, cut.size());
+  }
+
+  @Test
+  void shouldFindPhraseThatIsSuffixOfPartialMatch() {
+    BannedPhrases cut = BannedPhrases.of(List.of("abcd", "bc"));
+
+    assertTrue(cut.containsAny("xabce"));
+    assertFalse(cut.containsAny("abdc"));
+  }
+
+  @Test
+  void shouldMatchCaseSensitivelyIncludingNonAsciiCharacters() {
+    BannedPhrases cut = BannedPhrases.of(List.of("Lorem ipsum", "Mist ö"));
+
+    assertTrue(cut.containsAny("Start: Lorem ipsum dolor"));
+    assertFalse(cut.containsAny("lorem ipsum dolor"));
+    assertTrue(cut.containsAny("So ein Mist ö"));
+  }
+
+  @Test
+  void shouldIgnoreEmptyPhrases() {
+    BannedPhrases cut = BannedPhrases.of(List.of(""));
+
+    assertFalse(cut.containsAny("anything"));
+    assertEquals(0, cut.size());
+  }
+}
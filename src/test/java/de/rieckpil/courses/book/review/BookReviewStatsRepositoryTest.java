@@ -0,0 +1,166 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(BookReviewStatsReconciliation.class)
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookReviewStatsRepositoryTest {
+
+  @Container
+  static PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:12.3")
+    .withDatabaseName("test")
+    .withUsername("duke")
+    .withPassword("s3cret");
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", container::getJdbcUrl);
+    registry.add("spring.datasource.password", container::getPassword);
+    registry.add("spring.datasource.username", container::getUsername);
+  }
+
+  @Autowired
+  private BookReviewStatsRepository cut;
+
+  @Autowired
+  private BookReviewStatsReconciliation reconciliation;
+
+  @Autowired
+  private ReviewRepository reviewRepository;
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldMaintainRunningStatisticsPerBook() {
+    cut.addRating(2L, 5);
+    cut.addRating(2L, 1);
+
+    BookReviewStats result = cut.findById(2L).orElseThrow();
+
+    assertEquals(2L, result.getRatings());
+    assertEquals(6L, result.getRatingSum());
+    assertArrayEquals(new long[]{0, 1, 0, 0, 0, 1}, result.getHistogram());
+    assertEquals("1234567891235", cut.findAllRatingTotals().get(0).getIsbn());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldSubtractSingleDeletedReviewFromStatistics() {
+    reconciliation.reconcile();
+
+    Review review = reviewRepository.findAll().stream()
+      .filter(candidate -> candidate.getRating() == 1)
+      .findFirst()
+      .orElseThrow();
+
+    List<DeletedReview> deleted = reviewRepository.deleteByIdAndBookIsbn(review.getId(), "1234567891235");
+
+    assertEquals(1, deleted.size());
+    assertEquals(review.getId(), deleted.get(0).getReviewId());
+    assertEquals(2L, deleted.get(0).getBookId());
+
+    BookReviewStats result = cut.findById(2L).orElseThrow();
+
+    assertEquals(1L, result.getRatings());
+    assertEquals(5L, result.getRatingSum());
+    assertArrayEquals(new long[]{0, 0, 0, 0, 0, 1}, result.getHistogram());
+    assertTrue(reviewRepository.deleteByIdAndBookIsbn(review.getId(), "1234567891235").isEmpty());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldSubtractReviewsDeletedByIdFromStatistics() {
+    reconciliation.reconcile();
+
+    List<Long> reviewIds = reviewRepository.findAll().stream().map(Review::getId).toList();
+
+    assertEquals(3, reviewRepository.deleteAllByIdIn(reviewIds).size());
+    assertEquals(0L, cut.findById(1L).orElseThrow().getRatings());
+    assertEquals(0L, cut.findById(2L).orElseThrow().getRatingSum());
+    assertArrayEquals(new long[]{0, 0, 0, 0, 0, 0}, cut.findById(2L).orElseThrow().getHistogram());
+
+    cut.deleteAllIfEmpty(Set.of(1L, 2L));
+
+    assertEquals(0, cut.count());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldAddTotalsOfSeveralRatingsAtOnce() {
+    cut.addRating(2L, 5);
+    cut.addRatings(2L, 3, 7, 0, 1, 0, 2, 0, 0);
+
+    BookReviewStats result = cut.findById(2L).orElseThrow();
+
+    assertEquals(4L, result.getRatings());
+    assertEquals(12L, result.getRatingSum());
+    assertArrayEquals(new long[]{0, 1, 0, 2, 0, 1}, result.getHistogram());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldRepairDriftAgainstReviewsTable() {
+    cut.addRating(1L, 1);
+
+    assertEquals(2, reconciliation.reconcile());
+
+    assertEquals(2, cut.count());
+    assertEquals(1L, cut.findById(1L).orElseThrow().getRatings());
+    assertEquals(5L, cut.findById(1L).orElseThrow().getRatingSum());
+    assertEquals(2L, cut.findById(2L).orElseThrow().getRatings());
+    assertEquals(6L, cut.findById(2L).orElseThrow().getRatingSum());
+
+    assertArrayEquals(new long[]{0, 1, 0, 0, 0, 1}, cut.findById(2L).orElseThrow().getHistogram());
+    assertEquals(0, reconciliation.reconcile());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldRemoveStatisticsOfBooksWithoutReviews() {
+    reconciliation.reconcile();
+
+    reviewRepository.deleteAllInBatch();
+
+    assertEquals(2, reconciliation.reconcile());
+    assertEquals(0, cut.count());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldSubtractBulkDeletedReviewsFromStatistics() {
+    reconciliation.reconcile();
+
+    List<DeletedReview> deleted = reviewRepository.deleteAllByBookIsbn("1234567891235");
+
+    assertEquals(2, deleted.size());
+    assertEquals(0L, cut.findById(2L).orElseThrow().getRatings());
+
+    cut.deleteAllIfEmpty(Set.of(1L, 2L));
+
+    assertEquals(1, cut.count());
+    assertEquals(1, reviewRepository.deleteAllByUserEmail("duke@spring.io").size());
+
+    cut.deleteAllIfEmpty(Set.of(1L));
+
+    assertEquals(0, cut.count());
+    assertEquals(0, reconciliation.reconcile());
+  }
+}
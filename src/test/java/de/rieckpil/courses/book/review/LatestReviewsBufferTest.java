@@ -0,0 +1,109 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatestReviewsBufferTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 8, 11, 7, 45);
+
+  private LatestReviewsBuffer cut;
+  private List<ReviewView> database;
+  private AtomicInteger databaseReads;
+
+  @BeforeEach
+  void setup() {
+    cut = new LatestReviewsBuffer(3);
+    database = new ArrayList<>(List.of(review(4), review(3), review(2), review(1)));
+    databaseReads = new AtomicInteger();
+  }
+
+  @Test
+  void shouldServeRepeatedReadsFromMemoryAfterFirstDatabaseRead() {
+    assertEquals(List.of(4L, 3L), ids(cut.read(2, loader())));
+    assertEquals(List.of(4L, 3L, 2L), ids(cut.read(3, loader())));
+
+    assertEquals(1, databaseReads.get());
+  }
+
+  @Test
+  void shouldFallBackToDatabaseWhenRequestedSizeExceedsCapacity() {
+    cut.read(3, loader());
+
+    assertEquals(List.of(4L, 3L, 2L, 1L), ids(cut.read(4, loader())));
+    assertEquals(2, databaseReads.get());
+  }
+
+  @Test
+  void shouldEvictOldestReviewWhenNewReviewIsCreated() {
+    cut.read(3, loader());
+
+    cut.onReviewCreated(new ReviewCreatedEvent(review(5), 1L));
+
+    assertEquals(List.of(5L, 4L, 3L), ids(cut.read(3, loader())));
+    assertEquals(1, databaseReads.get());
+  }
+
+  @Test
+  void shouldOnlyServeRemainingReviewsFromMemoryAfterDeletion() {
+    cut.read(3, loader());
+
+    cut.onReviewDeleted(new ReviewDeletedEvent(3L, 1L, 5));
+    database.removeIf(review -> review.getReviewId() == 3L);
+
+    assertEquals(List.of(4L, 2L), ids(cut.read(2, loader())));
+    assertEquals(1, databaseReads.get());
+
+    assertEquals(List.of(4L, 2L, 1L), ids(cut.read(3, loader())));
+    assertEquals(2, databaseReads.get());
+  }
+
+  @Test
+  void shouldServeEverythingFromMemoryWhenDatabaseHoldsFewerReviewsThanCapacity() {
+    database = new ArrayList<>(List.of(review(1)));
+    cut.read(3, loader());
+
+    cut.onReviewCreated(new ReviewCreatedEvent(review(2), 1L));
+
+    assertEquals(List.of(2L, 1L), ids(cut.read(3, loader())));
+    assertEquals(1, databaseReads.get());
+  }
+
+  @Test
+  void shouldDiscardSeedWhenReviewIsCreatedDuringDatabaseRead() {
+    IntFunction<List<ReviewView>> racingLoader = limit -> {
+      List<ReviewView> staleResult = loader().apply(limit);
+      cut.onReviewCreated(new ReviewCreatedEvent(review(5), 1L));
+      return staleResult;
+    };
+
+    cut.read(3, racingLoader);
+    database.add(0, review(5));
+
+    assertEquals(List.of(5L, 4L, 3L), ids(cut.read(3, loader())));
+    assertEquals(2, databaseReads.get());
+  }
+
+  private IntFunction<List<ReviewView>> loader() {
+    return limit -> {
+      databaseReads.incrementAndGet();
+      return List.copyOf(database.subList(0, Math.min(limit, database.size())));
+    };
+  }
+
+  private static List<Long> ids(List<ReviewView> reviews) {
+    return reviews.stream().map(ReviewView::getReviewId).toList();
+  }
+
+  private static ReviewView review(long id) {
+    return new ReviewView(id, "Content", "Title " + id, 4, "42", "Java 14", null, "duke", NOW.plusMinutes(id));
+  }
+}
@@ -0,0 +1,31 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RatingDistributionViewTest {
+
+  @Test
+  void shouldDeriveMedianAndP90FromHistogram() {
+    RatingDistributionView cut = new RatingDistributionView(1L, "42", new long[]{1, 0, 2, 3, 3, 1});
+
+    assertEquals(10, cut.getRatings());
+    assertEquals(3, cut.getMedian());
+    assertEquals(4, cut.getP90());
+  }
+
+  @Test
+  void shouldUseSingleRatingForAllPercentiles() {
+    RatingDistributionView cut = new RatingDistributionView(1L, "42", new long[]{0, 0, 1, 0, 0, 0});
+
+    assertEquals(2, cut.getMedian());
+    assertEquals(2, cut.getP90());
+  }
+
+  @Test
+  void shouldCountRatingsAboveFiveIntoTopBucket() {
+    assertEquals(5, RatingDistributionView.bucketOf(42));
+    assertEquals(0, RatingDistributionView.bucketOf(0));
+  }
+}
@@ -0,0 +1,139 @@
+package de.rieckpil.courses.book.review;
+
+import de.rieckpil.courses.book.management.Book;
+import de.rieckpil.courses.book.management.BookRepository;
+import de.rieckpil.courses.book.management.BookSummaryCache;
+import de.rieckpil.courses.book.management.UserRepository;
+import de.rieckpil.courses.book.management.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the statements needed to store reviews one request at a time with the batch path. It runs on
+ * PostgreSQL, so the user and statistics upserts are part of the count.
+ */
+@DataJpaTest(properties = {
+  "spring.jpa.properties.hibernate.generate_statistics=true",
+  "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+  "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReviewBatchInsertTest {
+
+  private static final int REVIEWS = 200;
+  private static final int BOOKS = 10;
+  private static final String CONTENT = "This book explains testing Spring Boot applications in a very practical way";
+
+  @Container
+  static PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:12.3")
+    .withDatabaseName("test")
+    .withUsername("duke")
+    .withPassword("s3cret");
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", container::getJdbcUrl);
+    registry.add("spring.datasource.password", container::getPassword);
+    registry.add("spring.datasource.username", container::getUsername);
+  }
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private ReviewRepository reviewRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private BookReviewStatsRepository bookReviewStatsRepository;
+
+  private ReviewService cut;
+  private Statistics statistics;
+  private final List<Long> bookIds = new ArrayList<>();
+
+  @BeforeEach
+  void beforeEach() {
+    cut = new ReviewService(ReviewVerifiers.withDefaultRules(), new UserService(userRepository, 100), bookRepository,
+      new BookSummaryCache(bookRepository, 100, Duration.ofSeconds(30)), reviewRepository,
+      bookReviewStatsRepository, mock(ReviewStatisticsAggregator.class), mock(LatestReviewsBuffer.class),
+      mock(TopRatedReviews.class), mock(ReviewContentVersion.class), mock(ReviewStream.class),
+      mock(ApplicationEventPublisher.class));
+
+    for (int i = 0; i < BOOKS; i++) {
+      Book book = new Book();
+      book.setIsbn("isbn-" + i);
+      book.setTitle("Book " + i);
+      bookIds.add(bookRepository.save(book).getId());
+    }
+
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void shouldNeedFarFewerStatementsForBatchThanForSingleSubmissions() {
+    for (int i = 0; i < REVIEWS; i++) {
+      cut.createBookReview("isbn-" + (i % BOOKS), new BookReviewRequest("Title " + i, CONTENT, i % 6), "duke",
+        "duke@spring.io");
+      // every single submission is its own request; as the test transaction never commits, each one also
+      // resolves the user with an upsert
+      entityManager.flush();
+    }
+
+    long singleStatements = statistics.getPrepareStatementCount();
+
+    entityManager.clear();
+    statistics.clear();
+
+    List<BookReviewBatchItem> items = new ArrayList<>();
+    for (int i = 0; i < REVIEWS; i++) {
+      items.add(new BookReviewBatchItem("isbn-" + (i % BOOKS), "Title " + i, CONTENT, i % 6));
+    }
+
+    List<BookReviewBatchResult> result = cut.createBookReviews(items, "duke", "duke@spring.io");
+    entityManager.flush();
+
+    long batchStatements = statistics.getPrepareStatementCount();
+
+    assertEquals(REVIEWS, result.stream().filter(r -> r.getStatus() == BookReviewBatchResult.Status.CREATED).count());
+    assertEquals(2L * REVIEWS, reviewRepository.count());
+    assertTrue(batchStatements * 2 < singleStatements);
+    // pooled sequence ids let Hibernate group the inserts into JDBC batches instead of one insert per review,
+    // and the ratings are added with one statistics upsert per book instead of one per review
+    assertTrue(batchStatements < REVIEWS / 10 + BOOKS);
+
+    BookReviewStats stats = bookReviewStatsRepository.findById(bookIds.get(0)).orElseThrow();
+    assertEquals(2L * REVIEWS / BOOKS, stats.getRatings());
+    assertArrayEquals(new long[]{14, 0, 12, 0, 14, 0}, stats.getHistogram());
+  }
+}
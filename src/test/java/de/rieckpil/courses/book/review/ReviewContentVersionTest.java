@@ -0,0 +1,85 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ReviewContentVersionTest {
+
+  private static final String ISBN = "42";
+
+  @Test
+  void shouldChangeETagOnlyAfterViewsPublishedCommittedReview() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.registerBean(TransactionalEventListenerFactory.class);
+      context.registerBean(ReviewStatisticsAggregator.class, () -> new ReviewStatisticsAggregator(
+        mock(BookReviewStatsRepository.class), context.getBean(ReviewContentVersion.class), Duration.ofMinutes(1)));
+      context.registerBean(LatestReviewsBuffer.class, () -> new LatestReviewsBuffer(10));
+      context.registerBean(TopRatedReviews.class, () -> new TopRatedReviews(10));
+      context.registerBean(ReviewStream.class, () -> new ReviewStream(16, Duration.ofSeconds(15)));
+      context.registerBean(ObservingContentVersion.class);
+      context.refresh();
+
+      ReviewStatisticsAggregator aggregator = context.getBean(ReviewStatisticsAggregator.class);
+      LatestReviewsBuffer latestReviews = context.getBean(LatestReviewsBuffer.class);
+      TopRatedReviews topRatedReviews = context.getBean(TopRatedReviews.class);
+      ObservingContentVersion contentVersion = context.getBean(ObservingContentVersion.class);
+
+      latestReviews.read(10, size -> List.of());
+      topRatedReviews.read(10, size -> List.of());
+      contentVersion.observe(() -> List.of(
+        aggregator.find(ISBN).map(statistic -> statistic.getRatings().intValue()).orElse(0),
+        latestReviews.read(10, size -> List.of()).size(),
+        topRatedReviews.read(10, size -> List.of()).size()));
+
+      commit(() -> context.publishEvent(new ReviewCreatedEvent(new ReviewView(1L, "Content", "Title", 4, ISBN,
+        "Java 14", null, "duke", LocalDateTime.now()), 1L)));
+
+      // the statistics are published by the next refresh, which bumps the version once more
+      aggregator.refresh();
+
+      assertEquals(List.of(List.of(0, 1, 1), List.of(1, 1, 1)), contentVersion.observed);
+    }
+  }
+
+  private void commit(Runnable work) {
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      work.run();
+      TransactionSynchronizationUtils.invokeAfterCompletion(
+        TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  static class ObservingContentVersion extends ReviewContentVersion {
+
+    private final List<List<Integer>> observed = new ArrayList<>();
+    private Supplier<List<Integer>> views = List::of;
+
+    void observe(Supplier<List<Integer>> views) {
+      this.views = views;
+    }
+
+    @Override
+    public void increment() {
+      observed.add(views.get());
+      super.increment();
+    }
+  }
+}
@@ -7,11 +7,19 @@ import de.rieckpil.courses.book.management.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+
 class ReviewControllerIT extends AbstractIntegrationTest {
 
   private static final String ISBN = "9780596004651";
@@ -22,6 +30,9 @@ class ReviewControllerIT extends AbstractIntegrationTest {
   @Autowired
   private BookRepository bookRepository;
 
+  @SpyBean
+  private BookReviewStatsRepository bookReviewStatsRepository;
+
   @BeforeEach
   void setup() {
     Book book = new Book();
@@ -121,7 +132,8 @@ class ReviewControllerIT extends AbstractIntegrationTest {
       .exchange()
       .expectStatus().isCreated();
 
-    this.webTestClient
+    // the statistics snapshot is refreshed in the background
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> this.webTestClient
       .get()
       .uri("/api/books/reviews/statistics")
       .header(HttpHeaders.AUTHORIZATION, "Bearer " + getSignedJWT())
@@ -131,6 +143,41 @@ class ReviewControllerIT extends AbstractIntegrationTest {
       .jsonPath("$.size()").isEqualTo(1)
       .jsonPath("$[0].isbn").isEqualTo(ISBN)
       .jsonPath("$[0].ratings").isEqualTo(3)
-      .jsonPath("$[0].avg").isEqualTo(4.00);
+      .jsonPath("$[0].avg").isEqualTo(4.00));
+  }
+
+  @Test
+  void shouldCreateReviewOfNewUserWhoseFirstReviewWasRolledBack() throws JOSEException {
+    String reviewPayload = """
+      {
+        "reviewTitle" : "Great book with lots of tips & tricks",
+        "reviewContent" : "I can really recommend reading this book. It includes up-to-date library versions and real-world examples",
+        "rating": 4
+      }
+      """;
+
+    String validJWT = getSignedJWT("lisa", "lisa@spring.io");
+
+    doThrow(new IllegalStateException("Simulated failure after the user was created"))
+      .doCallRealMethod()
+      .when(bookReviewStatsRepository).addRating(anyLong(), anyInt());
+
+    this.webTestClient
+      .post()
+      .uri("/api/books/{isbn}/reviews", ISBN)
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + validJWT)
+      .contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(reviewPayload)
+      .exchange()
+      .expectStatus().is5xxServerError();
+
+    this.webTestClient
+      .post()
+      .uri("/api/books/{isbn}/reviews", ISBN)
+      .header(HttpHeaders.AUTHORIZATION, "Bearer " + validJWT)
+      .contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(reviewPayload)
+      .exchange()
+      .expectStatus().isCreated();
   }
 }
@@ -1,19 +1,31 @@
 package de.rieckpil.courses.book.review;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.hamcrest.Matchers;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import reactor.core.publisher.Flux;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -25,35 +37,248 @@ class ReviewControllerTest {
   @MockBean
   private ReviewService reviewService;
 
+  @MockBean
+  private ReviewIngestion reviewIngestion;
+
+  @MockBean
+  private ReviewIdempotency reviewIdempotency;
+
   @Autowired
   private MockMvc mockMvc;
 
-  private ObjectMapper objectMapper;
+  @Test
+  void shouldReturnTwentyReviewsWithoutAnyOrderWhenNoParametersAreSpecified() throws Exception {
+
+    ReviewView review = new ReviewView(1L, "Can recommend reading it", "Nice book!", 5, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+
+    when(reviewService.getAllReviews(20, "none", null, null)).thenReturn(new ReviewPage(List.of(review), null));
 
-  @BeforeEach
-  void beforeEach() {
-    this.objectMapper = new ObjectMapper();
+    this.mockMvc
+      .perform(get("/api/books/reviews"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", Matchers.is(1)))
+      .andExpect(jsonPath("$[0].reviewTitle", Matchers.is("Nice book!")))
+      .andExpect(jsonPath("$[0].submittedAt", Matchers.is(1597124700000L)))
+      .andExpect(jsonPath("$[0].createdAt").doesNotExist())
+      .andExpect(header().doesNotExist("X-Next-Cursor"));
   }
 
   @Test
-  void shouldReturnTwentyReviewsWithoutAnyOrderWhenNoParametersAreSpecified() throws Exception {
+  void shouldOnlyReturnSelectedFields() throws Exception {
 
-    ArrayNode result = objectMapper.createArrayNode();
+    ReviewView review = new ReviewView(1L, null, "Nice book!", 5, null,
+      "Java 14", null, null, LocalDateTime.of(2020, 8, 11, 7, 45));
 
-    ObjectNode statistic = objectMapper.createObjectNode();
-    statistic.put("bookId", 1);
-    statistic.put("isbn", "42");
-    statistic.put("avg", 89.3);
-    statistic.put("ratings", 2);
+    Set<ReviewField> fields = Set.of(ReviewField.REVIEW_TITLE, ReviewField.RATING, ReviewField.BOOK_TITLE);
 
-    result.add(statistic);
+    when(reviewService.getAllReviews(20, "none", null, fields)).thenReturn(new ReviewPage(List.of(review), null));
 
-    when(reviewService.getAllReviews(20, "none")).thenReturn(result);
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .param("fields", "reviewTitle,rating,bookTitle"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].size()", Matchers.is(3)))
+      .andExpect(jsonPath("$[0].reviewTitle", Matchers.is("Nice book!")))
+      .andExpect(jsonPath("$[0].rating", Matchers.is(5)))
+      .andExpect(jsonPath("$[0].bookTitle", Matchers.is("Java 14")))
+      .andExpect(jsonPath("$[0].reviewContent").doesNotExist());
+  }
 
+  @Test
+  void shouldRejectUnknownFields() throws Exception {
     this.mockMvc
-      .perform(get("/api/books/reviews"))
+      .perform(get("/api/books/reviews")
+        .param("fields", "reviewTitle,password"))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
+  }
+
+  @Test
+  void shouldReturnCborWhenRequested() throws Exception {
+
+    ReviewView review = new ReviewView(1L, "Can recommend reading it", "Nice book!", 5, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+
+    when(reviewService.getAllReviews(20, "none", null, null)).thenReturn(new ReviewPage(List.of(review), null));
+
+    MvcResult mvcResult = this.mockMvc
+      .perform(get("/api/books/reviews")
+        .accept("application/cbor"))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType("application/cbor"))
+      .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)))
+      .andReturn();
+
+    JsonNode result = new CBORMapper().readTree(mvcResult.getResponse().getContentAsByteArray());
+
+    assertEquals(1, result.size());
+    assertEquals("Nice book!", result.get(0).get("reviewTitle").asText());
+    assertEquals(1597124700000L, result.get(0).get("submittedAt").asLong());
+  }
+
+  @Test
+  void shouldReturnNextCursorWhenMoreReviewsAreAvailable() throws Exception {
+
+    when(reviewService.getAllReviews(2, "none", "abc", null))
+      .thenReturn(new ReviewPage(List.of(), "xyz"));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .param("size", "2")
+        .param("after", "abc"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("X-Next-Cursor", "xyz"));
+  }
+
+  @Test
+  void shouldReturnNotModifiedWithoutLoadingReviewsWhenETagMatches() throws Exception {
+
+    when(reviewService.getReviewsETag()).thenReturn("W/\"abc-42\"");
+
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-42\""))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string(HttpHeaders.ETAG, "W/\"abc-42\""))
+      .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+
+    verify(reviewService, never()).getAllReviews(anyInt(), anyString(), any(), any());
+  }
+
+  @Test
+  void shouldReturnReviewsWithETagWhenClientVersionIsOutdated() throws Exception {
+
+    when(reviewService.getReviewsETag()).thenReturn("W/\"abc-43\"");
+    when(reviewService.getAllReviews(20, "none", null, null)).thenReturn(new ReviewPage(List.of(), null));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-42\""))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, "W/\"abc-43\""))
+      .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+  }
+
+  @Test
+  void shouldRejectMalformedCursor() throws Exception {
+
+    when(reviewService.getAllReviews(20, "none", "malformed", null))
+      .thenThrow(new InvalidCursorException("malformed"));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .param("after", "malformed"))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void shouldReturnReviewsOfSingleBookToAnonymousUsers() throws Exception {
+
+    ReviewView review = new ReviewView(1L, "Can recommend reading it", "Nice book!", 5, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+
+    when(reviewService.getReviewsForBook("42", 1, null, null)).thenReturn(new ReviewPage(List.of(review), "xyz"));
+
+    this.mockMvc
+      .perform(get("/api/books/{isbn}/reviews", "42")
+        .param("size", "1"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", Matchers.is(1)))
+      .andExpect(jsonPath("$[0].bookIsbn", Matchers.is("42")))
+      .andExpect(header().string("X-Next-Cursor", "xyz"));
+  }
+
+  @Test
+  void shouldDeriveETagOfReviewsOfSingleBookFromTheirContent() throws Exception {
+
+    ReviewView review = new ReviewView(1L, "Can recommend reading it", "Nice book!", 5, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+    String eTag = new ReviewPage(List.of(review), null).getETag();
+
+    when(reviewService.getReviewsForBook("42", 20, null, null)).thenReturn(new ReviewPage(List.of(review), null));
+
+    this.mockMvc
+      .perform(get("/api/books/{isbn}/reviews", "42")
+        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+      .andExpect(status().isNotModified());
+
+    ReviewView changed = new ReviewView(1L, "Can recommend reading it", "Nice book!", 4, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+
+    when(reviewService.getReviewsForBook("42", 20, null, null)).thenReturn(new ReviewPage(List.of(changed), null));
+
+    this.mockMvc
+      .perform(get("/api/books/{isbn}/reviews", "42")
+        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, Matchers.not(eTag)));
+
+    verify(reviewService, never()).getReviewsETag();
+  }
+
+  @Test
+  void shouldNotAnswerLaterPagesFromWriteVersion() throws Exception {
+
+    when(reviewService.getReviewsETag()).thenReturn("W/\"abc-42\"");
+    when(reviewService.getAllReviews(20, "none", "abc", null)).thenReturn(new ReviewPage(List.of(), null));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews")
+        .param("after", "abc")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-42\""))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, new ReviewPage(List.of(), null).getETag()));
+  }
+
+  @Test
+  void shouldSearchReviewsForAnonymousUsers() throws Exception {
+
+    ReviewView review = new ReviewView(1L, "Can recommend reading it", "Nice book!", 5, "42",
+      "Java 14", null, "duke", LocalDateTime.of(2020, 8, 11, 7, 45));
+
+    when(reviewService.searchReviews("recommend", 1, 10)).thenReturn(List.of(review));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/search")
+        .param("q", "recommend")
+        .param("page", "1")
+        .param("size", "10"))
       .andExpect(status().isOk())
-      .andExpect(jsonPath("$.size()", Matchers.is(1)));
+      .andExpect(jsonPath("$.size()", Matchers.is(1)))
+      .andExpect(jsonPath("$[0].reviewId", Matchers.is(1)));
+  }
+
+  @Test
+  void shouldRejectSearchWithoutQuery() throws Exception {
+    this.mockMvc
+      .perform(get("/api/books/reviews/search"))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"page,-1", "size,0", "size,101"})
+  void shouldRejectInvalidPagingOfSearch(String parameter, String value) throws Exception {
+    this.mockMvc
+      .perform(get("/api/books/reviews/search")
+        .param("q", "recommend")
+        .param(parameter, value))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
+  }
+
+  @Test
+  void shouldStreamCreatedReviewsToAnonymousUsers() throws Exception {
+    when(reviewService.streamCreatedReviews()).thenReturn(Flux.never());
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/stream")
+        .accept(MediaType.TEXT_EVENT_STREAM))
+      .andExpect(request().asyncStarted());
   }
 
   @Test
@@ -68,6 +293,8 @@ class ReviewControllerTest {
   @Test
     // @WithMockUser(username = "duke")
   void shouldReturnReviewStatisticsWhenUserIsAuthenticated() throws Exception {
+    when(reviewService.getReviewStatistics(null, "none", null, null)).thenReturn(new ReviewStatisticPage(List.of(), 0));
+
     this.mockMvc
       .perform(get("/api/books/reviews/statistics")
         //.with(user("duke")))
@@ -75,7 +302,94 @@ class ReviewControllerTest {
         .with(jwt()))
       .andExpect(status().isOk());
 
-    verify(reviewService).getReviewStatistics();
+    verify(reviewService).getReviewStatistics(null, "none", null, null);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"page,-1", "size,0", "size,1001"})
+  void shouldRejectInvalidPagingOfReviewStatistics(String parameter, String value) throws Exception {
+    this.mockMvc
+      .perform(get("/api/books/reviews/statistics")
+        .param(parameter, value)
+        .with(jwt()))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
+  }
+
+  @Test
+  void shouldReturnRequestedPageOfReviewStatisticsWithTotalCount() throws Exception {
+    when(reviewService.getReviewStatistics(null, "avg", 2, 10)).thenReturn(new ReviewStatisticPage(
+      List.of(new ReviewStatisticView(1L, "42", new BigDecimal("4.50"), 2L)), 21));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/statistics")
+        .param("orderBy", "avg")
+        .param("page", "2")
+        .param("size", "10")
+        .with(jwt()))
+      .andExpect(status().isOk())
+      .andExpect(header().string("X-Total-Count", "21"))
+      .andExpect(jsonPath("$[0].isbn", Matchers.is("42")))
+      .andExpect(jsonPath("$[0].avg", Matchers.is(4.5)));
+  }
+
+  @Test
+  void shouldReturnRatingDistributionsWhenUserIsAuthenticated() throws Exception {
+    when(reviewService.getRatingDistributions())
+      .thenReturn(List.of(new RatingDistributionView(1L, "42", new long[]{0, 1, 0, 2, 0, 7})));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/statistics/distribution")
+        .with(jwt()))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].ratings", Matchers.is(10)))
+      .andExpect(jsonPath("$[0].histogram", Matchers.contains(0, 1, 0, 2, 0, 7)))
+      .andExpect(jsonPath("$[0].median", Matchers.is(5)))
+      .andExpect(jsonPath("$[0].p90", Matchers.is(5)));
+  }
+
+  @Test
+  void shouldReturnPerItemResultsForReviewBatch() throws Exception {
+
+    String requestBody = """
+        {
+          "reviews": [
+            {"isbn": "42", "reviewTitle": "Great Java Book!", "reviewContent": "I really like this book!", "rating": 4},
+            {"isbn": "84", "reviewTitle": "Unknown", "reviewContent": "Not in the catalog", "rating": 2}
+          ]
+        }
+      """;
+
+    when(reviewService.createBookReviews(anyList(), eq("duke"), eq("duke@spring.io")))
+      .thenReturn(List.of(
+        new BookReviewBatchResult(0, BookReviewBatchResult.Status.CREATED, 1L),
+        new BookReviewBatchResult(1, BookReviewBatchResult.Status.BOOK_NOT_FOUND, null)));
+
+    this.mockMvc
+      .perform(post("/api/books/reviews/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].status", Matchers.is("CREATED")))
+      .andExpect(jsonPath("$[0].reviewId", Matchers.is(1)))
+      .andExpect(jsonPath("$[1].status", Matchers.is("BOOK_NOT_FOUND")))
+      .andExpect(jsonPath("$[1].reviewId").doesNotExist());
+  }
+
+  @Test
+  void shouldRejectEmptyReviewBatch() throws Exception {
+    this.mockMvc
+      .perform(post("/api/books/reviews/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"reviews\": []}")
+        .with(jwt()))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(reviewService);
   }
 
   @Test
@@ -106,6 +420,148 @@ class ReviewControllerTest {
       .andExpect(header().string("Location", Matchers.containsString("/books/42/reviews/84")));
   }
 
+  @Test
+  void shouldCreateBookReviewOnlyOncePerIdempotencyKey() throws Exception {
+
+    String requestBody = """
+        {
+          "reviewTitle": "Great Java Book!",
+          "reviewContent": "I really like this book!",
+          "rating": 4
+        }
+      """;
+
+    when(reviewIdempotency.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"),
+      eq("duke@spring.io"), eq("abc")))
+      .thenReturn(84L);
+
+    this
+      .mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .header("Idempotency-Key", "abc")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isCreated())
+      .andExpect(header().string("Location", Matchers.containsString("/books/42/reviews/84")));
+
+    verify(reviewService, never()).createBookReview(any(), any(), any(), any());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"respond-async", "respond-async, wait=5", "handling=lenient, respond-async",
+    "Respond-Async; foo=bar"})
+  void shouldAcceptNewBookReviewAsynchronouslyWhenPreferred(String prefer) throws Exception {
+
+    String requestBody = """
+        {
+          "reviewTitle": "Great Java Book!",
+          "reviewContent": "I really like this book!",
+          "rating": 4
+        }
+      """;
+
+    when(reviewIngestion.enqueue(eq("42"), any(BookReviewRequest.class), eq("duke"), eq("duke@spring.io")))
+      .thenReturn(new ReviewIngestionStatus("abc", ReviewIngestionStatus.Status.PENDING, null));
+
+    this
+      .mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .header("Prefer", prefer)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isAccepted())
+      .andExpect(header().string("Location", Matchers.endsWith("/api/books/reviews/ingestion/abc")))
+      .andExpect(header().string("Preference-Applied", "respond-async"))
+      .andExpect(jsonPath("$.status", Matchers.is("PENDING")));
+
+    verify(reviewService, never()).createBookReview(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldRecognizeAsyncPreferenceAcrossHeaderLines() {
+    assertTrue(ReviewController.prefersAsync(List.of("handling=lenient", "wait=5, respond-async")));
+    assertFalse(ReviewController.prefersAsync(List.of("handling=strict", "return=minimal")));
+    assertFalse(ReviewController.prefersAsync(List.of("respond-asynchronously")));
+    assertFalse(ReviewController.prefersAsync(null));
+  }
+
+  @Test
+  void shouldCreateBookReviewSynchronouslyWhenAsyncRequestCarriesIdempotencyKey() throws Exception {
+
+    String requestBody = """
+        {
+          "reviewTitle": "Great Java Book!",
+          "reviewContent": "I really like this book!",
+          "rating": 4
+        }
+      """;
+
+    when(reviewIdempotency.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"),
+      eq("duke@spring.io"), eq("abc")))
+      .thenReturn(84L);
+
+    this
+      .mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .header("Prefer", "respond-async")
+        .header("Idempotency-Key", "abc")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isCreated())
+      .andExpect(header().doesNotExist("Preference-Applied"))
+      .andExpect(header().string("Location", Matchers.containsString("/books/42/reviews/84")));
+
+    verify(reviewIngestion, never()).enqueue(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldRejectAsynchronousBookReviewWhenQueueIsFull() throws Exception {
+
+    String requestBody = """
+        {
+          "reviewTitle": "Great Java Book!",
+          "reviewContent": "I really like this book!",
+          "rating": 4
+        }
+      """;
+
+    when(reviewIngestion.enqueue(eq("42"), any(BookReviewRequest.class), eq("duke"), eq("duke@spring.io")))
+      .thenThrow(new ReviewIngestionQueueFullException());
+
+    this
+      .mockMvc
+      .perform(post("/api/books/{isbn}/reviews", 42)
+        .header("Prefer", "respond-async")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+        .with(jwt().jwt(builder -> builder
+          .claim("email", "duke@spring.io")
+          .claim("preferred_username", "duke"))))
+      .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  void shouldReturnIngestionStatus() throws Exception {
+    when(reviewIngestion.getStatus("abc"))
+      .thenReturn(new ReviewIngestionStatus("abc", ReviewIngestionStatus.Status.CREATED, 84L));
+
+    this.mockMvc
+      .perform(get("/api/books/reviews/ingestion/{ticketId}", "abc")
+        .with(jwt()))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.status", Matchers.is("CREATED")))
+      .andExpect(jsonPath("$.reviewId", Matchers.is(84)));
+  }
+
   @Test
   void shouldRejectNewBookReviewForAuthenticatedUsersWithInvalidPayload() throws Exception {
 
@@ -149,4 +605,27 @@ class ReviewControllerTest {
 
     verify(reviewService).deleteReview("42", 3L);
   }
+
+  @Test
+  @WithMockUser(roles = "moderator")
+  void shouldDeleteReviewsInBulkWhenUserHasModeratorRole() throws Exception {
+    when(reviewService.deleteReviews(List.of(1L, 2L), null, null)).thenReturn(List.of(1L, 2L));
+
+    this.mockMvc
+      .perform(delete("/api/books/reviews")
+        .param("ids", "1,2"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$", Matchers.contains(1, 2)));
+  }
+
+  @Test
+  @WithMockUser
+  void shouldRejectBulkDeletionWithoutModeratorRole() throws Exception {
+    this.mockMvc
+      .perform(delete("/api/books/reviews")
+        .param("isbn", "42"))
+      .andExpect(status().isForbidden());
+
+    verifyNoInteractions(reviewService);
+  }
 }
@@ -0,0 +1,30 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewCursorTest {
+
+  @Test
+  void shouldRestoreFullTimestampPrecisionWhenDecodingEncodedCursor() {
+    LocalDateTime createdAt = LocalDateTime.of(2020, 8, 11, 7, 45, 0, 500_123_000);
+
+    String token = new ReviewCursor(createdAt, 42L).encode();
+    ReviewCursor result = ReviewCursor.decode(token);
+
+    assertEquals(createdAt, result.getCreatedAt());
+    assertEquals(42L, result.getId());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"not-base64!", "bm8tc2VwYXJhdG9y", "MjAyMC0wOC0xMXw0Mg", "MjAyMC0wOC0xMVQwNzo0NTowMHxkdWtl"})
+  void shouldRejectMalformedCursor(String token) {
+    assertThrows(InvalidCursorException.class, () -> ReviewCursor.decode(token));
+  }
+}
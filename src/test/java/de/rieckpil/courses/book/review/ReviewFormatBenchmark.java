@@ -0,0 +1,79 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a review listing as JSON, Smile and CBOR. Run the {@link #main(String[])} method;
+ * the payload size of each format is printed once per trial before the measurements start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewFormatBenchmark {
+
+  @Param({"json", "smile", "cbor"})
+  private String format;
+
+  @Param({"20", "500"})
+  private int reviewCount;
+
+  private ObjectMapper objectMapper;
+  private List<ReviewView> reviews;
+  private byte[] payload;
+
+  @Setup
+  public void setup() throws IOException {
+    switch (format) {
+      case "smile":
+        objectMapper = new SmileMapper();
+        break;
+      case "cbor":
+        objectMapper = new CBORMapper();
+        break;
+      default:
+        objectMapper = new ObjectMapper();
+    }
+
+    reviews = new ArrayList<>(reviewCount);
+    for (long i = 0; i < reviewCount; i++) {
+      reviews.add(new ReviewView(i, "I can really recommend reading this book. ".repeat(20), "Great book #" + i,
+        4, "9780596004651", "Joyful testing with Spring Boot", "https://localhost/thumbnail.png", "duke",
+        LocalDateTime.now().minusMinutes(i)));
+    }
+
+    payload = objectMapper.writeValueAsBytes(reviews);
+    System.out.printf("%n%s payload for %d reviews: %d bytes%n", format, reviewCount, payload.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return objectMapper.writeValueAsBytes(reviews);
+  }
+
+  @Benchmark
+  public JsonNode decode() throws IOException {
+    return objectMapper.readTree(payload);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ReviewFormatBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,51 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReviewIdempotencyKeyRepositoryTest {
+
+  @Container
+  static PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:12.3")
+    .withDatabaseName("test")
+    .withUsername("duke")
+    .withPassword("s3cret");
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", container::getJdbcUrl);
+    registry.add("spring.datasource.password", container::getPassword);
+    registry.add("spring.datasource.username", container::getUsername);
+  }
+
+  @Autowired
+  private ReviewIdempotencyKeyRepository cut;
+
+  @Test
+  void shouldOnlyClaimUnexpiredKeyOnce() {
+    LocalDateTime now = LocalDateTime.now();
+
+    assertEquals(1, cut.claim("duke@spring.io", "abc", "42", now, now.minusHours(24)));
+    assertEquals(0, cut.claim("duke@spring.io", "abc", "42", now, now.minusHours(24)));
+    assertEquals(1, cut.claim("mike@spring.io", "abc", "42", now, now.minusHours(24)));
+
+    assertEquals(1, cut.claim("duke@spring.io", "abc", "84", now.plusHours(25), now.plusHours(1)));
+    assertEquals("84", cut.findById(new ReviewIdempotencyKey.Key("duke@spring.io", "abc")).orElseThrow().getIsbn());
+
+    assertEquals(1, cut.deleteExpired(now.plusHours(1)));
+  }
+}
@@ -0,0 +1,185 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewIdempotencyTest {
+
+  private static final String EMAIL = "duke@spring.io";
+
+  @Mock
+  private ReviewService reviewService;
+
+  @Mock
+  private ReviewIdempotencyKeyRepository reviewIdempotencyKeyRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private ReviewIdempotency cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new ReviewIdempotency(reviewService, reviewIdempotencyKeyRepository,
+      new TransactionTemplate(transactionManager), Duration.ofHours(1), 1);
+  }
+
+  @Test
+  void shouldReturnStoredReviewForRepeatedKey() {
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), eq("abc"), eq("42"), any(), any())).thenReturn(1);
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenReturn(84L);
+
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+
+    verify(reviewService, times(1)).createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL));
+    verify(reviewIdempotencyKeyRepository).complete(EMAIL, "abc", 84L);
+  }
+
+  @Test
+  void shouldCreateReviewAgainForKeyOfDeletedReview() {
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), eq("abc"), eq("42"), any(), any())).thenReturn(1);
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenReturn(84L, 85L);
+
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+
+    cut.onReviewDeleted(new ReviewDeletedEvent(84L, 1L, 4));
+
+    assertEquals(85L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+    assertEquals(85L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+    verify(reviewService, times(2)).createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL));
+  }
+
+  @Test
+  void shouldReturnReviewOfExecutionOnAnotherNode() {
+    ReviewIdempotencyKey existing = new ReviewIdempotencyKey();
+    existing.setIsbn("42");
+    existing.setReviewId(84L);
+
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), eq("abc"), eq("42"), any(), any())).thenReturn(0);
+    when(reviewIdempotencyKeyRepository.findById(new ReviewIdempotencyKey.Key(EMAIL, "abc")))
+      .thenReturn(Optional.of(existing));
+
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+
+    verifyNoInteractions(reviewService);
+  }
+
+  @Test
+  void shouldRunConcurrentDuplicatesOnlyOnce() throws Exception {
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), eq("abc"), eq("42"), any(), any())).thenReturn(1);
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenAnswer(invocation -> {
+        Thread.sleep(50);
+        return 84L;
+      });
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Long>> results = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        return cut.createBookReview("42", request(), "duke", EMAIL, "abc");
+      }));
+    }
+
+    start.countDown();
+
+    Set<Long> reviewIds = new HashSet<>();
+    for (Future<Long> result : results) {
+      reviewIds.add(result.get(10, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+
+    assertEquals(Set.of(84L), reviewIds);
+    verify(reviewService, times(1)).createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL));
+  }
+
+  @Test
+  void shouldNotBlockOtherKeysWhileExecutionIsInFlight() throws Exception {
+    CountDownLatch slowCreationStarted = new CountDownLatch(1);
+    CountDownLatch releaseSlowCreation = new CountDownLatch(1);
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), any(), eq("42"), any(), any())).thenReturn(1);
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenAnswer(invocation -> {
+        slowCreationStarted.countDown();
+        releaseSlowCreation.await(10, TimeUnit.SECONDS);
+        return 84L;
+      })
+      .thenReturn(85L);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Long> slow = executor.submit(() -> cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+    slowCreationStarted.await(10, TimeUnit.SECONDS);
+
+    assertEquals(85L, cut.createBookReview("42", request(), "duke", EMAIL, "def"));
+
+    releaseSlowCreation.countDown();
+    assertEquals(84L, slow.get(10, TimeUnit.SECONDS));
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldFallBackToStoredKeyOnceEvictedFromCache() {
+    ReviewIdempotencyKey existing = new ReviewIdempotencyKey();
+    existing.setIsbn("42");
+    existing.setReviewId(84L);
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), any(), eq("42"), any(), any())).thenReturn(1, 1, 0);
+    when(reviewIdempotencyKeyRepository.findById(new ReviewIdempotencyKey.Key(EMAIL, "abc")))
+      .thenReturn(Optional.of(existing));
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenReturn(84L, 85L);
+
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+    assertEquals(85L, cut.createBookReview("42", request(), "duke", EMAIL, "def"));
+    assertEquals(84L, cut.createBookReview("42", request(), "duke", EMAIL, "abc"));
+
+    verify(reviewService, times(2)).createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL));
+  }
+
+  @Test
+  void shouldRejectKeyReusedForAnotherBook() {
+    when(reviewIdempotencyKeyRepository.claim(eq(EMAIL), eq("abc"), eq("42"), any(), any())).thenReturn(1);
+    when(reviewService.createBookReview(eq("42"), any(BookReviewRequest.class), eq("duke"), eq(EMAIL)))
+      .thenReturn(84L);
+
+    cut.createBookReview("42", request(), "duke", EMAIL, "abc");
+
+    assertThrows(IdempotencyKeyReusedException.class,
+      () -> cut.createBookReview("84", request(), "duke", EMAIL, "abc"));
+  }
+
+  @Test
+  void shouldRejectOverlongKey() {
+    assertThrows(InvalidIdempotencyKeyException.class,
+      () -> cut.createBookReview("42", request(), "duke", EMAIL, "x".repeat(256)));
+  }
+
+  private BookReviewRequest request() {
+    return new BookReviewRequest("Great Java Book!", "I really like this book!", 4);
+  }
+}
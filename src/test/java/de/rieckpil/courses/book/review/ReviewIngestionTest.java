@@ -0,0 +1,100 @@
+package de.rieckpil.courses.book.review;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewIngestionTest {
+
+  @Mock
+  private ReviewService reviewService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReviewIngestion cut;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    cut = new ReviewIngestion(reviewService, meterRegistry, 2, 10, Duration.ofMillis(10), 100);
+  }
+
+  @Test
+  void shouldDrainQueueOnItsOwnThreadOnceStarted() throws InterruptedException {
+    when(reviewService.createBookReviews(anyList(), eq("duke"), eq("duke@spring.io")))
+      .thenReturn(List.of(new BookReviewBatchResult(0, BookReviewBatchResult.Status.CREATED, 1L)));
+
+    cut.start();
+    ReviewIngestionStatus status = cut.enqueue("42", request(), "duke", "duke@spring.io");
+
+    verify(reviewService, timeout(5000)).createBookReviews(anyList(), eq("duke"), eq("duke@spring.io"));
+    cut.flush();
+
+    assertEquals(ReviewIngestionStatus.Status.CREATED, cut.getStatus(status.getTicketId()).getStatus());
+  }
+
+  @Test
+  void shouldWriteQueuedReviewsInOneBatchPerSubmitter() {
+    when(reviewService.createBookReviews(anyList(), eq("duke"), eq("duke@spring.io")))
+      .thenReturn(List.of(
+        new BookReviewBatchResult(0, BookReviewBatchResult.Status.CREATED, 1L),
+        new BookReviewBatchResult(1, BookReviewBatchResult.Status.BOOK_NOT_FOUND, null)));
+
+    ReviewIngestionStatus first = cut.enqueue("42", request(), "duke", "duke@spring.io");
+    ReviewIngestionStatus second = cut.enqueue("84", request(), "duke", "duke@spring.io");
+
+    assertEquals(ReviewIngestionStatus.Status.PENDING, cut.getStatus(first.getTicketId()).getStatus());
+    assertEquals(2.0, meterRegistry.get("reviews.ingestion.queue.depth").gauge().value());
+
+    assertEquals(2, cut.drain());
+
+    assertEquals(ReviewIngestionStatus.Status.CREATED, cut.getStatus(first.getTicketId()).getStatus());
+    assertEquals(1L, cut.getStatus(first.getTicketId()).getReviewId());
+    assertEquals(ReviewIngestionStatus.Status.BOOK_NOT_FOUND, cut.getStatus(second.getTicketId()).getStatus());
+    assertEquals(0.0, meterRegistry.get("reviews.ingestion.queue.depth").gauge().value());
+    assertEquals(2, meterRegistry.get("reviews.ingestion.latency").timer().count());
+    verify(reviewService, times(1)).createBookReviews(anyList(), eq("duke"), eq("duke@spring.io"));
+  }
+
+  @Test
+  void shouldRejectReviewsWhenQueueIsFull() {
+    cut.enqueue("42", request(), "duke", "duke@spring.io");
+    cut.enqueue("42", request(), "duke", "duke@spring.io");
+
+    assertThrows(ReviewIngestionQueueFullException.class,
+      () -> cut.enqueue("42", request(), "duke", "duke@spring.io"));
+  }
+
+  @Test
+  void shouldMarkReviewsAsFailedWhenWritingFails() {
+    when(reviewService.createBookReviews(anyList(), eq("duke"), eq("duke@spring.io")))
+      .thenThrow(new IllegalStateException("database unavailable"));
+
+    ReviewIngestionStatus status = cut.enqueue("42", request(), "duke", "duke@spring.io");
+
+    cut.drain();
+
+    assertEquals(ReviewIngestionStatus.Status.FAILED, cut.getStatus(status.getTicketId()).getStatus());
+  }
+
+  @Test
+  void shouldFailForUnknownTicket() {
+    assertThrows(ReviewIngestionNotFoundException.class, () -> cut.getStatus("unknown"));
+  }
+
+  private BookReviewRequest request() {
+    return new BookReviewRequest("Great Java Book!", "I really like this book!", 4);
+  }
+}
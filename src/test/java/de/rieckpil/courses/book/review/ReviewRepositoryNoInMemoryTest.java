@@ -11,10 +11,12 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
-import java.math.BigDecimal;
+import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @Testcontainers(disabledWithoutDocker = true)
@@ -37,27 +39,41 @@ class ReviewRepositoryNoInMemoryTest {
   @Autowired
   private ReviewRepository cut;
 
+  @Autowired
+  private EntityManager entityManager;
+
   @Test
   @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
-  void shouldGetTwoReviewStatisticsWhenDatabaseContainsTwoBooksWithReview() {
+  void shouldRankTitleMatchesAboveContentMatches() {
 
-    List<ReviewStatistic> result = cut.getReviewStatistics();
+    List<ReviewSearchResult> result = cut.searchReviews("nice", 10, 0);
 
-    assertEquals(3, cut.count());
     assertEquals(2, result.size());
+    assertEquals("Nice book!", result.get(0).getReviewTitle());
+    assertEquals("Duke", result.get(0).getSubmittedBy());
+    assertEquals("Too easy", result.get(1).getReviewTitle());
+    assertNotNull(result.get(1).getCreatedAt());
+
+    assertEquals(1, cut.searchReviews("nice", 1, 1).size());
+  }
+
+  @Test
+  @Sql(scripts = "/scripts/INIT_REVIEW_EACH_BOOK.sql")
+  void shouldUseSearchIndexOnSeededDataset() {
+    entityManager.createNativeQuery(
+      "INSERT INTO reviews (title, content, rating, created_at, book_id, user_id) " +
+        "SELECT 'Review ' || i, 'Solid introduction to the topic, chapter ' || i, 4, now(), 1, 1 " +
+        "FROM generate_series(1, 10000) AS i")
+      .executeUpdate();
+    entityManager.createNativeQuery("ANALYZE reviews").executeUpdate();
+
+    List<?> plan = entityManager.createNativeQuery(
+      "EXPLAIN SELECT id FROM reviews WHERE search_vector @@ websearch_to_tsquery('english', 'beginners')")
+      .getResultList();
 
-    result.forEach(reviewStatistic -> {
-      System.out.println("ReviewStatistic");
-      System.out.println(reviewStatistic.getId());
-      System.out.println(reviewStatistic.getAvg());
-      System.out.println(reviewStatistic.getIsbn());
-      System.out.println(reviewStatistic.getRatings());
-      System.out.println("");
-    });
-
-    assertEquals(2, result.get(0).getRatings());
-    assertEquals(2, result.get(0).getId());
-    assertEquals(new BigDecimal("3.00"), result.get(0).getAvg());
+    assertTrue(plan.stream().anyMatch(line -> line.toString().contains("reviews_search_vector_idx")),
+      () -> "Expected a scan of the search index, but got " + plan);
+    assertEquals(2, cut.searchReviews("beginners", 20, 0).size());
   }
 
   @Test
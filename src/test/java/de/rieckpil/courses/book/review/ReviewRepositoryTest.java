@@ -1,25 +1,35 @@
 package de.rieckpil.courses.book.review;
 
+import de.rieckpil.courses.book.management.Book;
+import de.rieckpil.courses.book.management.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import javax.persistence.EntityManager;
 import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest(properties = {
   "spring.flyway.enabled=false",
   "spring.jpa.hibernate.ddl-auto=create-drop",
   "spring.datasource.driver-class-name=com.p6spy.engine.spy.P6SpyDriver", // P6Spy
-  "spring.datasource.url=jdbc:p6spy:h2:mem:testing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false" // P6Spy
+  "spring.datasource.url=jdbc:p6spy:h2:mem:testing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false", // P6Spy
+  "spring.jpa.properties.hibernate.generate_statistics=true"
 })
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class ReviewRepositoryTest {
@@ -81,4 +91,116 @@ class ReviewRepositoryTest {
 
   }
 
+  @Test
+  void shouldLoadReviewViewsWithSingleStatement() {
+    LocalDateTime now = LocalDateTime.now();
+    Review oldest = persistReview("Oldest", now.minusDays(2));
+    Review middle = persistReview("Middle", now.minusDays(1));
+    Review newest = persistReview("Newest", now);
+
+    testEntityManager.clear();
+    Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    List<ReviewView> result = cut.findLatestViews(PageRequest.of(0, 2));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(List.of(newest.getId(), middle.getId()), result.stream().map(ReviewView::getReviewId).toList());
+    assertEquals("Joyful testing with Spring Boot", result.get(0).getBookTitle());
+    assertEquals("duke", result.get(0).getSubmittedBy());
+
+    statistics.clear();
+
+    List<ReviewView> nextPage = cut.findLatestViewsCreatedBefore(middle.getCreatedAt(), middle.getId(), PageRequest.of(0, 2));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(List.of(oldest.getId()), nextPage.stream().map(ReviewView::getReviewId).toList());
+
+    statistics.clear();
+
+    assertTrue(cut.findViewByIdAndBookIsbn(oldest.getId(), "9780596004651").isPresent());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void shouldPageThroughReviewsOfSingleBook() {
+    LocalDateTime now = LocalDateTime.now();
+    Review oldest = persistReview("Oldest", now.minusDays(2));
+    Review otherBook = persistReview("9780321356680", "Other", now.minusDays(1));
+    Review newest = persistReview("Newest", now);
+
+    testEntityManager.clear();
+
+    List<ReviewView> firstPage = cut.findLatestViewsByBookIsbn("9780596004651", PageRequest.of(0, 1));
+
+    assertEquals(List.of(newest.getId()), firstPage.stream().map(ReviewView::getReviewId).toList());
+
+    List<ReviewView> nextPage = cut.findLatestViewsByBookIsbnCreatedBefore("9780596004651",
+      newest.getCreatedAt(), newest.getId(), PageRequest.of(0, 1));
+
+    assertEquals(List.of(oldest.getId()), nextPage.stream().map(ReviewView::getReviewId).toList());
+    assertEquals(List.of(otherBook.getId()), cut.findLatestViewsByBookIsbn("9780321356680", PageRequest.of(0, 5))
+      .stream().map(ReviewView::getReviewId).toList());
+  }
+
+  @Test
+  void shouldOnlyLoadSelectedFields() {
+    LocalDateTime now = LocalDateTime.now();
+    Review oldest = persistReview("Oldest", now.minusDays(1));
+    Review newest = persistReview("Newest", now);
+
+    testEntityManager.clear();
+
+    List<ReviewView> firstPage = cut.findLatestViews(
+      Set.of(ReviewField.REVIEW_TITLE, ReviewField.RATING), null, null, 1);
+
+    assertEquals(1, firstPage.size());
+    assertEquals(newest.getId(), firstPage.get(0).getReviewId());
+    assertEquals("Newest", firstPage.get(0).getReviewTitle());
+    assertEquals(5, firstPage.get(0).getRating());
+    assertNull(firstPage.get(0).getReviewContent());
+    assertNull(firstPage.get(0).getBookTitle());
+
+    List<ReviewView> nextPage = cut.findLatestViews(Set.of(ReviewField.BOOK_TITLE), "9780596004651",
+      new ReviewCursor(newest.getCreatedAt(), newest.getId()), 5);
+
+    assertEquals(List.of(oldest.getId()), nextPage.stream().map(ReviewView::getReviewId).toList());
+    assertEquals("Joyful testing with Spring Boot", nextPage.get(0).getBookTitle());
+    assertNull(nextPage.get(0).getReviewTitle());
+  }
+
+  private Review persistReview(String title, LocalDateTime createdAt) {
+    return persistReview("9780596004651", title, createdAt);
+  }
+
+  private Review persistReview(String isbn, String title, LocalDateTime createdAt) {
+    Book book = (Book) entityManager
+      .createQuery("SELECT b FROM Book b WHERE b.isbn = :isbn")
+      .setParameter("isbn", isbn)
+      .getResultStream()
+      .findFirst()
+      .orElseGet(() -> {
+        Book newBook = new Book();
+        newBook.setIsbn(isbn);
+        newBook.setTitle("Joyful testing with Spring Boot");
+        newBook.setDescription("Writing unit and integration tests for Spring Boot applications");
+        return testEntityManager.persist(newBook);
+      });
+
+    User user = new User();
+    user.setName("duke");
+    user.setEmail(title + "@spring.io");
+    user.setCreatedAt(createdAt);
+
+    Review review = new Review();
+    review.setTitle(title);
+    review.setContent("Duke");
+    review.setRating(5);
+    review.setCreatedAt(createdAt);
+    review.setBook(book);
+    review.setUser(testEntityManager.persist(user));
+
+    return testEntityManager.persistFlushFind(review);
+  }
+
 }
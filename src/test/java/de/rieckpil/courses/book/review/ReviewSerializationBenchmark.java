@@ -0,0 +1,82 @@
+package de.rieckpil.courses.book.review;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building an intermediate {@link ArrayNode} tree (the former listing path) with writing
+ * {@link ReviewView} objects straight to the output stream. Run the {@link #main(String[])} method;
+ * the GC profiler reports {@code gc.alloc.rate.norm} as bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewSerializationBenchmark {
+
+  @Param({"20", "500"})
+  private int reviewCount;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private List<ReviewView> reviews;
+
+  @Setup
+  public void setup() {
+    reviews = new ArrayList<>(reviewCount);
+    for (long i = 0; i < reviewCount; i++) {
+      reviews.add(new ReviewView(i, "I can really recommend reading this book. ".repeat(20), "Great book #" + i,
+        4, "9780596004651", "Joyful testing with Spring Boot", "https://localhost/thumbnail.png", "duke",
+        LocalDateTime.now().minusMinutes(i)));
+    }
+  }
+
+  @Benchmark
+  public void treeThenSerialize() throws IOException {
+    ArrayNode result = objectMapper.createArrayNode();
+
+    for (ReviewView review : reviews) {
+      ObjectNode objectNode = objectMapper.createObjectNode();
+      objectNode.put("reviewId", review.getReviewId());
+      objectNode.put("reviewContent", review.getReviewContent());
+      objectNode.put("reviewTitle", review.getReviewTitle());
+      objectNode.put("rating", review.getRating());
+      objectNode.put("bookIsbn", review.getBookIsbn());
+      objectNode.put("bookTitle", review.getBookTitle());
+      objectNode.put("bookThumbnailUrl", review.getBookThumbnailUrl());
+      objectNode.put("submittedBy", review.getSubmittedBy());
+      objectNode.put("submittedAt",
+        review.getCreatedAt().atZone(ZoneId.of("Europe/Berlin")).toInstant().toEpochMilli());
+      result.add(objectNode);
+    }
+
+    objectMapper.writeValue(OutputStream.nullOutputStream(), result);
+  }
+
+  @Benchmark
+  public void serializeDirectly() throws IOException {
+    objectMapper.writeValue(OutputStream.nullOutputStream(), reviews);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ReviewSerializationBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+}
@@ -2,6 +2,8 @@ package de.rieckpil.courses.book.review;
 
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.BookRepository;
+import de.rieckpil.courses.book.management.BookSummary;
+import de.rieckpil.courses.book.management.BookSummaryCache;
 import de.rieckpil.courses.book.management.User;
 import de.rieckpil.courses.book.management.UserService;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +13,14 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,9 +37,33 @@ class ReviewServiceTest {
   @Mock
   private BookRepository bookRepository;
 
+  @Mock
+  private BookSummaryCache bookSummaryCache;
+
   @Mock
   private ReviewRepository reviewRepository;
 
+  @Mock
+  private BookReviewStatsRepository bookReviewStatsRepository;
+
+  @Mock
+  private ReviewStatisticsAggregator reviewStatisticsAggregator;
+
+  @Mock
+  private LatestReviewsBuffer latestReviewsBuffer;
+
+  @Mock
+  private TopRatedReviews topRatedReviews;
+
+  @Mock
+  private ReviewContentVersion reviewContentVersion;
+
+  @Mock
+  private ReviewStream reviewStream;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   @InjectMocks
   private ReviewService cut;
 
@@ -49,7 +83,7 @@ class ReviewServiceTest {
   @Test
   @DisplayName("Write english sentence")
   void shouldThrowExceptionWhenReviewedBookIsNotExisting() {
-    when(bookRepository.findByIsbn(ISBN)).thenReturn(null);
+    when(bookSummaryCache.find(ISBN)).thenReturn(Optional.empty());
 
     assertThrows(IllegalArgumentException.class,
       () -> cut.createBookReview(ISBN, null, USERNAME, EMAIL));
@@ -60,7 +94,7 @@ class ReviewServiceTest {
     // arrange - given
     BookReviewRequest bookReviewRequest =
       new BookReviewRequest("Title", "BADCONTENT!", 1);
-    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(bookSummaryCache.find(ISBN)).thenReturn(Optional.of(new BookSummary(7L, ISBN, "Java 14", null)));
     when(mockedReviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())).thenReturn(false);
 
     // act - when
@@ -77,7 +111,7 @@ class ReviewServiceTest {
     BookReviewRequest bookReviewRequest =
       new BookReviewRequest("Title", "GOOD CONTENT!", 1);
 
-    when(bookRepository.findByIsbn(ISBN)).thenReturn(new Book());
+    when(bookSummaryCache.find(ISBN)).thenReturn(Optional.of(new BookSummary(7L, ISBN, "Java 14", null)));
     when(mockedReviewVerifier.doesMeetQualityStandards(bookReviewRequest.getReviewContent())).thenReturn(true);
     when(userService.getOrCreateUser(USERNAME, EMAIL)).thenReturn(new User());
     when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> {
@@ -90,5 +124,143 @@ class ReviewServiceTest {
 
     Long expected = 42L;
     assertEquals(expected, result);
+    verify(bookReviewStatsRepository).addRating(7L, 1);
+    verify(eventPublisher).publishEvent(any(ReviewCreatedEvent.class));
+  }
+
+  @Test
+  void shouldDropEmptyStatisticsAndNotifyWhenDeletingReview() {
+    DeletedReview review = deletedReview(42L, 7L, 3);
+
+    when(reviewRepository.deleteByIdAndBookIsbn(42L, ISBN)).thenReturn(List.of(review));
+
+    cut.deleteReview(ISBN, 42L);
+
+    verify(bookReviewStatsRepository).deleteAllIfEmpty(Set.of(7L));
+    verify(eventPublisher).publishEvent(any(ReviewDeletedEvent.class));
+  }
+
+  @Test
+  void shouldDeleteAllReviewsOfUserWithOneStatement() {
+    when(reviewRepository.deleteAllByUserEmail(EMAIL))
+      .thenReturn(List.of(deletedReview(1L, 7L, 5), deletedReview(2L, 7L, 1), deletedReview(3L, 8L, 4)));
+
+    List<Long> result = cut.deleteReviews(null, EMAIL, null);
+
+    assertEquals(List.of(1L, 2L, 3L), result);
+    verify(bookReviewStatsRepository).deleteAllIfEmpty(Set.of(7L, 8L));
+    verify(eventPublisher, times(3)).publishEvent(any(ReviewDeletedEvent.class));
+    verifyNoMoreInteractions(reviewRepository);
+  }
+
+  @Test
+  void shouldRequireExactlyOneDeletionCriterion() {
+    assertThrows(InvalidReviewDeletionException.class, () -> cut.deleteReviews(null, null, null));
+    assertThrows(InvalidReviewDeletionException.class, () -> cut.deleteReviews(List.of(1L), EMAIL, null));
+    assertThrows(InvalidReviewDeletionException.class, () -> cut.deleteReviews(List.of(), null, null));
+
+    verifyNoInteractions(reviewRepository);
+  }
+
+  @Test
+  void shouldLimitRatingOrderToConfiguredMaximumSize() {
+    when(topRatedReviews.getCapacity()).thenReturn(100);
+    when(topRatedReviews.read(eq(100), any())).thenReturn(List.of());
+
+    ReviewPage result = cut.getAllReviews(500, "rating", null, null);
+
+    assertTrue(result.getReviews().isEmpty());
+    assertNull(result.getNextCursor());
+    verifyNoInteractions(reviewRepository);
+  }
+
+  @Test
+  void shouldSliceRequestedPageOfReviewStatistics() {
+    List<ReviewStatisticView> statistics = List.of(
+      new ReviewStatisticView(1L, "1", BigDecimal.ONE, 1L),
+      new ReviewStatisticView(2L, "2", BigDecimal.ONE, 1L),
+      new ReviewStatisticView(3L, "3", BigDecimal.ONE, 1L));
+
+    when(reviewStatisticsAggregator.snapshot("none")).thenReturn(statistics);
+
+    assertEquals(List.of(statistics.get(2)), cut.getReviewStatistics(null, "none", 1, 2).getStatistics());
+    assertEquals(3, cut.getReviewStatistics(null, "none", 1, 2).getTotalCount());
+    assertTrue(cut.getReviewStatistics(null, "none", 5, 2).getStatistics().isEmpty());
+  }
+
+  @Test
+  void shouldReturnAllReviewStatisticsUnlessPageIsRequested() {
+    List<ReviewStatisticView> statistics = IntStream.rangeClosed(1, ReviewService.DEFAULT_STATISTICS_PAGE_SIZE + 1)
+      .mapToObj(id -> new ReviewStatisticView((long) id, String.valueOf(id), BigDecimal.ONE, 1L))
+      .collect(Collectors.toList());
+
+    when(reviewStatisticsAggregator.snapshot("none")).thenReturn(statistics);
+
+    assertEquals(statistics, cut.getReviewStatistics(null, "none", null, null).getStatistics());
+    assertEquals(1, cut.getReviewStatistics(null, "none", 1, null).getStatistics().size());
+    assertEquals(ReviewService.DEFAULT_STATISTICS_PAGE_SIZE,
+      cut.getReviewStatistics(null, "none", null, ReviewService.DEFAULT_STATISTICS_PAGE_SIZE).getStatistics().size());
+  }
+
+  @Test
+  void shouldLookUpStatisticsOfSingleBook() {
+    when(reviewStatisticsAggregator.find("42")).thenReturn(Optional.empty());
+
+    ReviewStatisticPage result = cut.getReviewStatistics("42", "none", 0, 100);
+
+    assertTrue(result.getStatistics().isEmpty());
+    assertEquals(0, result.getTotalCount());
+  }
+
+  @Test
+  void shouldOnlyStoreBatchItemsForKnownBooksWithGoodQuality() {
+    Book book = new Book();
+    book.setId(7L);
+    book.setIsbn(ISBN);
+
+    List<BookReviewBatchItem> items = List.of(
+      new BookReviewBatchItem(ISBN, "Title", "GOOD CONTENT!", 4),
+      new BookReviewBatchItem("unknown", "Title", "GOOD CONTENT!", 4),
+      new BookReviewBatchItem(ISBN, "Title", "BAD CONTENT!", 1));
+
+    when(bookRepository.findByIsbnIn(Set.of(ISBN, "unknown"))).thenReturn(List.of(book));
+    when(userService.getOrCreateUser(USERNAME, EMAIL)).thenReturn(new User());
+    when(mockedReviewVerifier.doesMeetQualityStandards("GOOD CONTENT!")).thenReturn(true);
+    when(mockedReviewVerifier.doesMeetQualityStandards("BAD CONTENT!")).thenReturn(false);
+    when(reviewRepository.saveAll(anyList())).thenAnswer(invocation -> {
+      List<Review> reviews = invocation.getArgument(0);
+      reviews.forEach(review -> review.setId(42L));
+      return reviews;
+    });
+
+    List<BookReviewBatchResult> result = cut.createBookReviews(items, USERNAME, EMAIL);
+
+    assertEquals(BookReviewBatchResult.Status.CREATED, result.get(0).getStatus());
+    assertEquals(42L, result.get(0).getReviewId());
+    assertEquals(BookReviewBatchResult.Status.BOOK_NOT_FOUND, result.get(1).getStatus());
+    assertEquals(BookReviewBatchResult.Status.BAD_REVIEW_QUALITY, result.get(2).getStatus());
+    assertEquals(2, result.get(2).getIndex());
+
+    verify(bookReviewStatsRepository).addRatings(7L, 1, 4, 0, 0, 0, 0, 1, 0);
+    verify(eventPublisher, times(1)).publishEvent(any(ReviewCreatedEvent.class));
+  }
+
+  private DeletedReview deletedReview(Long reviewId, Long bookId, Integer rating) {
+    return new DeletedReview() {
+      @Override
+      public Long getReviewId() {
+        return reviewId;
+      }
+
+      @Override
+      public Long getBookId() {
+        return bookId;
+      }
+
+      @Override
+      public Integer getRating() {
+        return rating;
+      }
+    };
   }
 }
@@ -0,0 +1,73 @@
+package de.rieckpil.courses.book.review;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ReviewStatisticsAggregator} under concurrent review writes and statistics reads. The
+ * {@code readOnly} group shows the cost of serving an unchanged snapshot, {@code mixed} lets three writer threads
+ * keep the background refresh rebuilding while one reader keeps fetching the snapshot. Run the
+ * {@link #main(String[])} method.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewStatisticsAggregatorBenchmark {
+
+  @Param({"100", "10000"})
+  private int bookCount;
+
+  private ReviewStatisticsAggregator aggregator;
+
+  @Setup
+  public void setup() {
+    aggregator = new ReviewStatisticsAggregator(null, new ReviewContentVersion(), Duration.ofMillis(100));
+    for (long bookId = 0; bookId < bookCount; bookId++) {
+      aggregator.add(bookId, "isbn-" + bookId, 4);
+    }
+    aggregator.refresh();
+    aggregator.start();
+  }
+
+  @TearDown
+  public void tearDown() {
+    aggregator.stop();
+  }
+
+  @Benchmark
+  @Group("readOnly")
+  public List<ReviewStatisticView> readUnchangedSnapshot() {
+    return aggregator.snapshot();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public void write() {
+    long bookId = ThreadLocalRandom.current().nextLong(bookCount);
+    aggregator.add(bookId, "isbn-" + bookId, 5);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public List<ReviewStatisticView> read() {
+    return aggregator.snapshot();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ReviewStatisticsAggregatorBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,216 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewStatisticsAggregatorTest {
+
+  @Mock
+  private BookReviewStatsRepository bookReviewStatsRepository;
+
+  private final ReviewContentVersion reviewContentVersion = new ReviewContentVersion();
+
+  private ReviewStatisticsAggregator cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new ReviewStatisticsAggregator(bookReviewStatsRepository, reviewContentVersion, Duration.ofMillis(100));
+  }
+
+  @Test
+  void shouldSeedFromDatabaseAndApplyWrites() {
+    when(bookReviewStatsRepository.findAllRatingTotals())
+      .thenReturn(List.of(total(2L, "84", 2, 6, new long[]{0, 0, 0, 2, 0, 0})));
+
+    cut.seed();
+    cut.add(1L, "42", 5);
+    cut.add(2L, "84", 1);
+    cut.remove(2L, 3);
+    cut.refresh();
+
+    List<ReviewStatisticView> result = cut.snapshot();
+
+    assertEquals(2, result.size());
+    assertEquals(1L, result.get(0).getBookId());
+    assertEquals(new BigDecimal("5.00"), result.get(0).getAvg());
+    assertEquals("84", result.get(1).getIsbn());
+    assertEquals(2L, result.get(1).getRatings());
+    assertEquals(new BigDecimal("2.00"), result.get(1).getAvg());
+
+    List<RatingDistributionView> distributions = cut.distributions();
+
+    assertArrayEquals(new long[]{0, 0, 0, 0, 0, 1}, distributions.get(0).getHistogram());
+    assertArrayEquals(new long[]{0, 1, 0, 1, 0, 0}, distributions.get(1).getHistogram());
+    assertEquals(1, distributions.get(1).getMedian());
+    assertEquals(3, distributions.get(1).getP90());
+  }
+
+  @Test
+  void shouldPublishSnapshotOnlyWhenRefreshedAfterWrite() {
+    cut.add(1L, "42", 4);
+
+    assertTrue(cut.snapshot().isEmpty());
+    assertTrue(cut.refresh());
+
+    List<ReviewStatisticView> first = cut.snapshot();
+
+    assertEquals(1, first.size());
+    assertFalse(cut.refresh());
+    assertSame(first, cut.snapshot());
+
+    cut.remove(1L, 4);
+
+    assertSame(first, cut.snapshot());
+    assertTrue(cut.refresh());
+    assertTrue(cut.snapshot().isEmpty());
+  }
+
+  @Test
+  void shouldBumpContentVersionOnlyWhenRefreshedSnapshotDiffers() {
+    String initial = reviewContentVersion.getETag();
+
+    cut.add(1L, "42", 4);
+    cut.refresh();
+
+    String afterWrite = reviewContentVersion.getETag();
+    assertNotEquals(initial, afterWrite);
+
+    when(bookReviewStatsRepository.findAllRatingTotals())
+      .thenReturn(List.of(total(1L, "42", 1, 4, new long[]{0, 0, 0, 0, 1, 0})))
+      .thenReturn(List.of(total(1L, "42", 2, 9, new long[]{0, 0, 0, 0, 1, 1})));
+
+    cut.onStatisticsRepaired(new ReviewStatisticsRepairedEvent(0));
+
+    assertEquals(afterWrite, reviewContentVersion.getETag());
+
+    cut.onStatisticsRepaired(new ReviewStatisticsRepairedEvent(1));
+
+    assertNotEquals(afterWrite, reviewContentVersion.getETag());
+    assertEquals(2L, cut.find("42").orElseThrow().getRatings());
+  }
+
+  @Test
+  void shouldRefreshSnapshotInBackgroundOnceStarted() {
+    cut.start();
+    try {
+      cut.add(1L, "42", 4);
+
+      await().atMost(Duration.ofSeconds(5)).until(() -> cut.find("42").isPresent());
+    } finally {
+      cut.stop();
+    }
+  }
+
+  @Test
+  void shouldOrderByAverageOrRatingsAndLookUpByIsbn() {
+    cut.add(1L, "42", 5);
+    cut.add(2L, "84", 4);
+    cut.add(2L, "84", 4);
+    cut.add(3L, "21", 1);
+    cut.refresh();
+
+    assertEquals(List.of(1L, 2L, 3L), bookIds(cut.snapshot("none")));
+    assertEquals(List.of(1L, 2L, 3L), bookIds(cut.snapshot("avg")));
+    assertEquals(List.of(2L, 1L, 3L), bookIds(cut.snapshot("ratings")));
+    assertEquals(2L, cut.find("84").orElseThrow().getRatings());
+    assertTrue(cut.find("unknown").isEmpty());
+  }
+
+  @Test
+  void shouldDropBooksMissingFromReseed() {
+    cut.add(1L, "42", 4);
+    when(bookReviewStatsRepository.findAllRatingTotals())
+      .thenReturn(List.of(total(2L, "84", 1, 3, new long[]{0, 0, 0, 1, 0, 0})));
+
+    cut.onStatisticsRepaired(new ReviewStatisticsRepairedEvent(2));
+
+    List<ReviewStatisticView> result = cut.snapshot();
+
+    assertEquals(1, result.size());
+    assertEquals(2L, result.get(0).getBookId());
+  }
+
+  @Test
+  void shouldReadTotalsAgainWhenWriteCommitsDuringReseed() {
+    when(bookReviewStatsRepository.findAllRatingTotals())
+      .thenAnswer(invocation -> {
+        // the write commits after the totals were read, so they don't include it yet
+        commitWrite(() -> cut.add(2L, "84", 5));
+        return List.of(total(2L, "84", 1, 4, new long[]{0, 0, 0, 0, 1, 0}));
+      })
+      .thenReturn(List.of(total(2L, "84", 2, 9, new long[]{0, 0, 0, 0, 1, 1})));
+
+    cut.seed();
+
+    assertEquals(2L, cut.find("84").orElseThrow().getRatings());
+    assertArrayEquals(new long[]{0, 0, 0, 0, 1, 1}, cut.distributions().get(0).getHistogram());
+    verify(bookReviewStatsRepository, times(2)).findAllRatingTotals();
+  }
+
+  @Test
+  void shouldKeepWritesCommittedAfterTotalsWereRead() {
+    cut.add(1L, "42", 1);
+    when(bookReviewStatsRepository.findAllRatingTotals())
+      .thenAnswer(invocation -> {
+        // read before the write committed, the write then reaches the generation being seeded
+        List<BookRatingTotal> totals = List.of(total(1L, "42", 1, 4, new long[]{0, 0, 0, 0, 1, 0}));
+        cut.add(1L, "42", 5);
+        cut.remove(1L, 4);
+        return totals;
+      });
+
+    cut.seed();
+
+    assertEquals(1L, cut.find("42").orElseThrow().getRatings());
+    assertArrayEquals(new long[]{0, 0, 0, 0, 0, 1}, cut.distributions().get(0).getHistogram());
+  }
+
+  private void commitWrite(Runnable applyEvent) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cut.onReviewWritePublished();
+      List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+      TransactionSynchronizationUtils.triggerBeforeCommit(false);
+      applyEvent.run();
+      TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private List<Long> bookIds(List<ReviewStatisticView> statistics) {
+    return statistics.stream().map(ReviewStatisticView::getBookId).toList();
+  }
+
+  private BookRatingTotal total(Long bookId, String isbn, long ratings, long ratingSum, long[] histogram) {
+    BookReviewStats stats = new BookReviewStats();
+    stats.setBookId(bookId);
+    stats.setRatings(ratings);
+    stats.setRatingSum(ratingSum);
+    stats.setHistogram(histogram);
+    return new BookRatingTotal(stats, isbn);
+  }
+}
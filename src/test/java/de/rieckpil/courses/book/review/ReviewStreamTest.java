@@ -0,0 +1,67 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewStreamTest {
+
+  private ReviewStream cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new ReviewStream(2, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void shouldPushCreatedReviewsToEverySubscriber() {
+    List<Long> first = new CopyOnWriteArrayList<>();
+    List<Long> second = new CopyOnWriteArrayList<>();
+    cut.createdReviews().subscribe(review -> first.add(review.getReviewId()));
+    cut.createdReviews().subscribe(review -> second.add(review.getReviewId()));
+
+    cut.onReviewCreated(event(1));
+    cut.onReviewCreated(event(2));
+
+    assertEquals(List.of(1L, 2L), first);
+    assertEquals(List.of(1L, 2L), second);
+  }
+
+  @Test
+  void shouldDropOldestReviewsForLaggingSubscriber() {
+    List<Long> received = new CopyOnWriteArrayList<>();
+    BaseSubscriber<ReviewView> laggingSubscriber = new BaseSubscriber<>() {
+      @Override
+      protected void hookOnSubscribe(Subscription subscription) {
+      }
+
+      @Override
+      protected void hookOnNext(ReviewView review) {
+        received.add(review.getReviewId());
+      }
+    };
+
+    cut.createdReviews().subscribe(laggingSubscriber);
+
+    for (int i = 1; i <= 5; i++) {
+      cut.onReviewCreated(event(i));
+    }
+
+    laggingSubscriber.request(Long.MAX_VALUE);
+
+    assertEquals(List.of(4L, 5L), received);
+  }
+
+  private static ReviewCreatedEvent event(long reviewId) {
+    return new ReviewCreatedEvent(new ReviewView(reviewId, "Content", "Title", 4, "42", "Java 14", null,
+      "duke", LocalDateTime.now()), 1L);
+  }
+}
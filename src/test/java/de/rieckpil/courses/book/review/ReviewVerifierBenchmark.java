@@ -0,0 +1,88 @@
+package de.rieckpil.courses.book.review;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ReviewVerifier#doesMeetQualityStandards(String)} with the default rules, so the single pass of
+ * the built-in checks plus the verification timer, with the former split based implementation on good reviews of
+ * growing length, which have to be scanned completely. {@link #singlePass()} applies the built-in checks without
+ * the verifier, so the difference to {@link #rulePipeline()} is the cost of the pipeline itself. Run the {@link #main(String[])} method, adding
+ * {@code -prof gc} shows the allocation difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewVerifierBenchmark {
+
+  private static final String[] WORDS = {"this", "book", "explains", "testing", "Spring", "Boot", "applications",
+    "in", "a", "very", "practical", "way", "with", "many", "examples", "I", "good"};
+
+  @Param({"50", "1000", "10000"})
+  private int wordCount;
+
+  private String review;
+  private ReviewVerifier reviewVerifier;
+  private QualityStandardsRule qualityStandardsRule;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < wordCount; i++) {
+      // keep "I" and "good" below their limits so no rule short-circuits
+      String word = i < 4 ? WORDS[15 + i % 2] : WORDS[ThreadLocalRandom.current().nextInt(15)];
+      builder.append(word).append(' ');
+    }
+    review = builder.toString();
+    reviewVerifier = ReviewVerifiers.withDefaultRules();
+    qualityStandardsRule = new QualityStandardsRule(ReviewVerifiers.defaultDictionary());
+  }
+
+  @Benchmark
+  public boolean rulePipeline() {
+    return reviewVerifier.doesMeetQualityStandards(review);
+  }
+
+  @Benchmark
+  public boolean singlePass() {
+    return qualityStandardsRule.accepts(review);
+  }
+
+  @Benchmark
+  public boolean splitBased() {
+    if (review.contains("Lorem ipsum")) {
+      return false;
+    }
+
+    String[] words = review.split(" ");
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("I")).count() >= 5) {
+      return false;
+    }
+
+    if (Arrays.stream(words).filter(s -> s.equalsIgnoreCase("good")).count() >= 3) {
+      return false;
+    }
+
+    if (words.length <= 10) {
+      return false;
+    }
+
+    return !review.contains("shit");
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ReviewVerifierBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
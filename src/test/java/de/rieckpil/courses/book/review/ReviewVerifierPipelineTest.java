@@ -0,0 +1,161 @@
+package de.rieckpil.courses.book.review;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewVerifierPipelineTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final List<String> evaluated = new ArrayList<>();
+
+  private ReviewVerifier cut;
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    if (cut != null) {
+      cut.shutdown();
+    }
+  }
+
+  @Test
+  void shouldEvaluateRulesInOrderAndStopAtFirstRejection() {
+    cut = verifier(
+      new TestRule("third", 3, false, review -> true),
+      new TestRule("first", 1, false, review -> true),
+      new TestRule("second", 2, false, review -> false),
+      new TestRule("expensive", 0, true, review -> true));
+
+    assertFalse(cut.doesMeetQualityStandards("any review"));
+    assertEquals(List.of("first", "second"), evaluated);
+  }
+
+  @Test
+  void shouldRecordWholeVerificationByOutcomeAndRejectingRule() {
+    cut = verifier(
+      new TestRule("lenient", 1, false, review -> true),
+      new TestRule("strict", 2, false, review -> review.contains("good")));
+
+    cut.doesMeetQualityStandards("a good review");
+    cut.doesMeetQualityStandards("a bad review");
+
+    assertEquals(1, count("none", "accepted"));
+    assertEquals(1, count("strict", "rejected"));
+    assertEquals(0, count("lenient", "rejected"));
+  }
+
+  @Test
+  void shouldRejectWhenExpensiveRuleRejects() {
+    cut = verifier(
+      new TestRule("cheap", 1, false, review -> true),
+      new TestRule("slow-but-fine", 2, true, review -> true),
+      new TestRule("spam-detector", 3, true, review -> !review.contains("spam")));
+
+    assertTrue(cut.doesMeetQualityStandards("a review"));
+    assertFalse(cut.doesMeetQualityStandards("a spam review"));
+    assertEquals(1, count("spam-detector", "rejected"));
+  }
+
+  @Test
+  void shouldAcceptWhenExpensiveRuleMissesDeadline() {
+    cut = verifier(
+      new TestRule("cheap", 1, false, review -> true),
+      new TestRule("hanging", 2, true, review -> {
+        awaitRelease();
+        return false;
+      }));
+
+    assertTrue(cut.doesMeetQualityStandards("a review"));
+    assertEquals(1, meterRegistry.get("reviews.verification.timeouts").tag("rule", "hanging").counter().count());
+    assertEquals(0, count("hanging", "rejected"));
+  }
+
+  @Test
+  void shouldComposePluggableRulesAroundBuiltInChecks() {
+    List<ReviewRule> rules = new ArrayList<>(ReviewVerifiers.defaultRules());
+    rules.add(new TestRule("before", -1, false, review -> true));
+    rules.add(new TestRule("after", 1, false, review -> !review.contains("Java")));
+    cut = verifier(rules.toArray(ReviewRule[]::new));
+
+    assertFalse(cut.doesMeetQualityStandards("too short"));
+    assertFalse(cut.doesMeetQualityStandards("Lorem ipsum is a nice placeholder text but not a review at all"));
+    assertEquals(List.of("before", "before"), evaluated);
+
+    assertFalse(cut.doesMeetQualityStandards("I can totally recommend this book who is interested in learning how to write Java code!"));
+    assertTrue(cut.doesMeetQualityStandards("I can totally recommend this book who is interested in learning how to write Kotlin code!"));
+    assertEquals(2, count("quality-standards", "rejected"));
+    assertEquals(1, count("after", "rejected"));
+  }
+
+  private ReviewVerifier verifier(ReviewRule... rules) {
+    return new ReviewVerifier(List.of(rules), meterRegistry, Duration.ofMillis(100), 2, 10);
+  }
+
+  private long count(String rule, String outcome) {
+    return meterRegistry.get("reviews.verification")
+      .tag("rule", rule)
+      .tag("outcome", outcome)
+      .timer()
+      .count();
+  }
+
+  private void awaitRelease() {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private class TestRule implements ReviewRule {
+
+    private final String name;
+    private final int order;
+    private final boolean expensive;
+    private final Predicate<String> predicate;
+
+    TestRule(String name, int order, boolean expensive, Predicate<String> predicate) {
+      this.name = name;
+      this.order = order;
+      this.expensive = expensive;
+      this.predicate = predicate;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public boolean accepts(String review) {
+      synchronized (evaluated) {
+        evaluated.add(name);
+      }
+      return predicate.test(review);
+    }
+
+    @Override
+    public boolean isExpensive() {
+      return expensive;
+    }
+
+    @Override
+    public int getOrder() {
+      return order;
+    }
+  }
+}
@@ -10,10 +10,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.CsvSource;
 
 import java.util.List;
 
 import static de.rieckpil.courses.book.review.RandomReviewParameterResolverExtension.RandomReview;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -24,7 +26,7 @@ class ReviewVerifierTest {
 
   @BeforeEach
   void setup() {
-    reviewVerifier = new ReviewVerifier();
+    reviewVerifier = ReviewVerifiers.withDefaultRules();
   }
 
   @Test
@@ -103,4 +105,19 @@ class ReviewVerifierTest {
     Assertions.assertThat(List.of(1, 2, 3, 4, 5)).contains(3).isNotEmpty();
   }
 
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', value = {
+    "one two three four five six seven eight nine ten eleven|true",
+    "'one two three four five six seven eight nine ten eleven   '|true",
+    "one two three four five six seven eight nine ten|false",
+    "one two three four five  six seven eight nine ten|true",
+    "i read it and I liked it, i think I will read it again and I|false",
+    "I, I, I, I, I, is what this book makes you say all day long|true",
+    "GOOD book, good examples and Good explanations for good reasons|false",
+    "an unsorted list of remarks about this book, lorem ipsum included|true",
+    "a shitty book with nothing but filler from the first page on|false"
+  })
+  void shouldTokenizeLikeSplittingOnSpaces(String review, boolean expected) {
+    assertEquals(expected, reviewVerifier.doesMeetQualityStandards(review));
+  }
 }
@@ -0,0 +1,29 @@
+package de.rieckpil.courses.book.review;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Builds the review verification of the application with its default rules and dictionary, as Spring wires it.
+ */
+final class ReviewVerifiers {
+
+  private ReviewVerifiers() {
+  }
+
+  static BannedPhraseDictionary defaultDictionary() {
+    return new BannedPhraseDictionary(new ClassPathResource(BannedPhraseDictionary.DEFAULT_LOCATION),
+      Duration.ofSeconds(10));
+  }
+
+  static List<ReviewRule> defaultRules() {
+    return List.of(new QualityStandardsRule(defaultDictionary()));
+  }
+
+  static ReviewVerifier withDefaultRules() {
+    return new ReviewVerifier(defaultRules(), new SimpleMeterRegistry(), Duration.ofMillis(500), 4, 100);
+  }
+}
@@ -0,0 +1,45 @@
+package de.rieckpil.courses.book.review;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopRatedReviewsTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 8, 11, 7, 45);
+
+  @Test
+  void shouldRankNewReviewByRatingAndDropLowestRatedReview() {
+    TopRatedReviews cut = new TopRatedReviews(3);
+    cut.read(3, limit -> List.of(review(1, 5, 0), review(2, 4, 1), review(3, 2, 2)));
+
+    cut.onReviewCreated(new ReviewCreatedEvent(review(4, 4, 3), 1L));
+
+    List<ReviewView> result = cut.read(3, limit -> {
+      throw new AssertionError("Should not query the database");
+    });
+
+    assertEquals(List.of(1L, 4L, 2L), result.stream().map(ReviewView::getReviewId).toList());
+  }
+
+  @Test
+  void shouldIgnoreNewReviewRankedBelowFullWindow() {
+    TopRatedReviews cut = new TopRatedReviews(2);
+    cut.read(2, limit -> List.of(review(1, 5, 0), review(2, 4, 1)));
+
+    cut.onReviewCreated(new ReviewCreatedEvent(review(3, 1, 2), 1L));
+
+    List<ReviewView> result = cut.read(2, limit -> {
+      throw new AssertionError("Should not query the database");
+    });
+
+    assertEquals(List.of(1L, 2L), result.stream().map(ReviewView::getReviewId).toList());
+  }
+
+  private static ReviewView review(long id, int rating, long minutes) {
+    return new ReviewView(id, "Content", "Title", rating, "42", "Java 14", null, "duke", NOW.plusMinutes(minutes));
+  }
+}
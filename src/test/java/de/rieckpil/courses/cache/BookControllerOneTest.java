@@ -1,5 +1,7 @@
 package de.rieckpil.courses.cache;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import de.rieckpil.courses.book.management.Book;
 import de.rieckpil.courses.book.management.BookController;
 import de.rieckpil.courses.book.management.BookManagementService;
@@ -14,7 +16,10 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -49,6 +54,29 @@ class BookControllerOneTest {
       .andExpect(status().isNotAcceptable());
   }
 
+  @Test
+  void shouldReturnSmileWhenRequested() throws Exception {
+
+    Book book = createBook(1L, "42", "Java 14", "Mike", "Good book",
+      "Software Engineering", 200L, "Oracle", "ftp://localhost:42");
+
+    when(bookManagementService.getAllBooks()).thenReturn(List.of(book));
+
+    MvcResult mvcResult = this.mockMvc
+      .perform(get("/api/books")
+        .header(HttpHeaders.ACCEPT, "application/x-jackson-smile"))
+      .andExpect(status().is(200))
+      .andExpect(content().contentType("application/x-jackson-smile"))
+      .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+      .andReturn();
+
+    JsonNode result = new SmileMapper().readTree(mvcResult.getResponse().getContentAsByteArray());
+
+    assertEquals(1, result.size());
+    assertEquals("42", result.get(0).get("isbn").asText());
+    assertFalse(result.get(0).has("id"));
+  }
+
   @Test
   void shouldGetBooksWhenServiceReturnsBooks() throws Exception {
 